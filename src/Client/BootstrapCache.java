@@ -0,0 +1,91 @@
+package Client;
+
+import Common.Protocol;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Klasa przechowująca na dysku ostatnią konfigurację otrzymaną od serwera w odpowiedzi {@link Protocol#BOOTSTRAP}.
+ * Plik zawiera dane wiadomości w niezmienionej postaci: wersję, liczbę ramek oraz ramki składowe. Przy odczycie
+ * wersja jest wyliczana od nowa z ramek składowych, więc uszkodzony lub niekompletny plik jest pomijany
+ */
+class BootstrapCache
+{
+    /**
+     * Katalog z danymi zapisanymi przez klienta
+     */
+    private static final Path CACHE_DIRECTORY = Paths.get("./data/cache");
+
+    /**
+     * Plik z ostatnią konfiguracją otrzymaną od serwera
+     */
+    private static final Path BOOTSTRAP_FILE = CACHE_DIRECTORY.resolve("bootstrap.bin");
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private BootstrapCache() {}
+
+    /**
+     * Wczytuje zapisaną konfigurację i sprawdza, czy zgadza się z zapisaną w niej wersją
+     * @return Dane wiadomości {@link Protocol#BOOTSTRAP} lub {@code null}, jeśli brak poprawnej kopii
+     */
+    static byte[] load()
+    {
+        if(!Files.isRegularFile(BOOTSTRAP_FILE))
+            return null;
+        try {
+            byte[] payload = Files.readAllBytes(BOOTSTRAP_FILE);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            String version = in.readUTF();
+            in.readInt();
+            byte[] parts = Arrays.copyOfRange(payload, payload.length - in.available(), payload.length);
+            if(version.equals(Protocol.contentVersion(Collections.singletonList(parts))))
+                return payload;
+            System.out.println("Cached bootstrap is corrupted, ignoring it");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Zapisuje konfigurację do pliku. Dane trafiają najpierw do pliku tymczasowego, który następnie
+     * zastępuje poprzednią kopię, więc przerwany zapis nie psuje pamięci podręcznej
+     * @param payload Dane wiadomości {@link Protocol#BOOTSTRAP}
+     */
+    static void store(byte[] payload)
+    {
+        try {
+            Files.createDirectories(CACHE_DIRECTORY);
+            Path temporaryFile = Files.createTempFile(CACHE_DIRECTORY, "bootstrap", ".tmp");
+            Files.write(temporaryFile, payload);
+            try {
+                Files.move(temporaryFile, BOOTSTRAP_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, BOOTSTRAP_FILE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Odczytuje wersję konfiguracji
+     * @param payload Dane wiadomości {@link Protocol#BOOTSTRAP} lub {@code null}
+     * @return Wersja konfiguracji lub pusty napis, jeśli brak danych
+     */
+    static String versionOf(byte[] payload)
+    {
+        if(payload == null)
+            return "";
+        try {
+            return new DataInputStream(new ByteArrayInputStream(payload)).readUTF();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+}
@@ -9,17 +9,18 @@ import Client.Game.Environment.Tile;
 import Client.Game.Managers.GameManager;
 import Client.Game.Managers.Level;
 import Client.UI.CustomTextArea;
+import Common.Message;
+import Common.Protocol;
 import javafx.util.Pair;
 
 import java.io.*;
 import javax.swing.*;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -34,20 +35,30 @@ public class ClientConnection implements Runnable
     private final Socket socket;
 
     /**
-     * Zmienna reprezentująca obiektowy strumień wyjściowy
+     * Zmienna reprezentująca strumień wyjściowy, do którego zapisywane są ramki protokołu
      */
-    private ObjectOutputStream objectOutputStream;
+    private DataOutputStream dataOutputStream;
 
     /**
-     * Zmienna reprezentująca obiektowy strumień wejściowy
+     * Zmienna reprezentująca strumień wejściowy, z którego odczytywane są ramki protokołu
      */
-    private ObjectInputStream objectInputStream;
+    private DataInputStream dataInputStream;
 
     /**
      * Pole zawierające informację o ilości wysłanych żądań
      */
     final AtomicInteger requestsSent = new AtomicInteger();
 
+    /**
+     * Zatrzask zwalniany po odebraniu odpowiedzi na zapytanie startowe albo po zerwaniu połączenia
+     */
+    private final CountDownLatch bootstrapReceived = new CountDownLatch(1);
+
+    /**
+     * Konfiguracja zapisana na dysku przez {@link BootstrapCache}, {@code null}, jeśli klient jej nie posiada
+     */
+    private volatile byte[] cachedBootstrap;
+
     /**
      * Pole informujące czy otrzymano poziom od serwera
      */
@@ -69,15 +80,16 @@ public class ClientConnection implements Runnable
         socket = connectToServer(ipAddress, port);
         try
         {
-            objectOutputStream = new ObjectOutputStream(socket.getOutputStream());
-            objectInputStream = new ObjectInputStream(socket.getInputStream());
+            dataOutputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            dataInputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Metoda rozpoczynajaca faktyczną pracę wątku obsługi połączenia z serwerem
+     * Metoda rozpoczynajaca faktyczną pracę wątku obsługi połączenia z serwerem. Wątek czeka na kolejne
+     * ramki w {@link #receiveData()}, więc odpowiedzi czekające w kolejce odbierane są bez opóźnień
      */
     @Override
     public void run()
@@ -86,11 +98,11 @@ public class ClientConnection implements Runnable
         {
             try {
                 receiveData();
-                Thread.sleep(25);
             } catch(Exception e) {
                 try {
                     socket.close();
                     Utils.setOnlineGaming(false);
+                    bootstrapReceived.countDown();
                     JOptionPane.showMessageDialog(null,"Połączenie z serwerem zostało utracone!\nNastąpi przejście w tryb offline.", "Ostrzeżenie", JOptionPane.WARNING_MESSAGE);
                     break;
                 } catch (IOException ex) {
@@ -104,51 +116,23 @@ public class ClientConnection implements Runnable
     /**
      * Metoda odbierająca dane ze strumienia wejściowego
      * @throws IOException wyjątek związany z błędem strumienia wejścia wyjścia
-     * @throws ClassNotFoundException wyjątek związany z błędem rzutowania
      */
-    private void receiveData() throws IOException, ClassNotFoundException
+    private void receiveData() throws IOException
     {
-        Pair<String, Object> pair = (Pair<String, Object>)objectInputStream.readObject();
-        manageReceivedData(pair);
+        Message message = Protocol.readFrame(dataInputStream);
+        manageReceivedData(message);
     }
 
     /**
      * Metoda zarządzająca odebranymi danymi
-     * @param pair {@code Pair<String,Object>} argument będący odebraną od serwera odpowiedzą
+     * @param message {@code Message} argument będący odebraną od serwera odpowiedzą
+     * @throws IOException w przypadku uszkodzonych danych wiadomości
      */
-    private void manageReceivedData(Pair<String, Object> pair)
+    private void manageReceivedData(Message message) throws IOException
     {
-        String key = pair.getKey();
-        String[] keyWords = key.split(" ");
-
-        if(keyWords[0].equals("SEND") && keyWords[1].equals("Properties"))
+        if(message.opcode == Protocol.PROPERTIES)
         {
-            Properties properties = (Properties)pair.getValue();
-
-            switch(keyWords[2])
-            {
-                case "gameManager":
-                    GameManager.loadProperties(properties);
-                    break;
-                case "tile":
-                    Tile.loadProperties(properties);
-                    break;
-                case "bomb":
-                    Bomb.loadProperties(properties);
-                    break;
-                case "explosion":
-                    Explosion.loadProperties(properties);
-                    break;
-                case "player":
-                    Player.loadProperties(properties);
-                    break;
-                case "enemy":
-                    Enemy.loadProperties(properties);
-                    break;
-                case "collectable":
-                    Collectable.loadProperties(properties);
-                    break;
-            }
+            receiveProperties(message);
 
             requestsSent.decrementAndGet();
             if(requestsSent.get() == 0)
@@ -159,82 +143,183 @@ public class ClientConnection implements Runnable
             }
         }
 
-        else if(keyWords[0].equals("SEND") && keyWords[1].equals("Level"))
+        else if(message.opcode == Protocol.LEVEL)
         {
-            ArrayList<String> lines = (ArrayList<String>)pair.getValue();
-            Level.receivedLevelLines = lines;
+            receiveLevel(message);
             synchronized (levelReceived) {
                 levelReceived.set(true);
                 levelReceived.notifyAll();
             }
         }
 
-        else if(keyWords[0].equals("SEND") && keyWords[1].equals("Leaderboard")){
+        else if(message.opcode == Protocol.BOOTSTRAP)
+        {
+            byte[] payload = new byte[message.payload.available()];
+            message.payload.readFully(payload);
+            BootstrapCache.store(payload);
+            applyBootstrap(payload);
+            System.out.println("Bootstrap received, version " + BootstrapCache.versionOf(payload));
+            bootstrapReceived.countDown();
+        }
+
+        else if(message.opcode == Protocol.BOOTSTRAP_NOT_MODIFIED)
+        {
+            applyBootstrap(cachedBootstrap);
+            System.out.println("Bootstrap loaded from cache, version " + message.payload.readUTF());
+            bootstrapReceived.countDown();
+        }
 
-            ArrayList<String> highScores = (ArrayList<String>)pair.getValue();
+        else if(message.opcode == Protocol.LEADERBOARD || message.opcode == Protocol.LEADERBOARD_PAGE){
 
-            if (highScores != null){
+            int offset = 0;
+            if(message.opcode == Protocol.LEADERBOARD_PAGE) {
+                offset = message.payload.readInt();
+                message.payload.readInt();
+            }
+            ArrayList<Pair<String, String>> highScores = Protocol.readScores(message.payload);
 
-                    CustomTextArea scores = Main.instance.getUiManager().highScores;
-                    scores.setText("");
-                    int index = 1;
-                    for (String s:highScores) {
-                        scores.append(index++ + ". " + s + "\n");
-                    }
-                    highScoresRecived.set(true);
-                    System.out.println("High Scores received");
+            CustomTextArea scores = Main.instance.getUiManager().highScores;
+            scores.setText("");
+            int index = offset + 1;
+            for (Pair<String, String> score : highScores) {
+                scores.append(index++ + ". " + score.getKey() + " " + score.getValue() + "\n");
+            }
+            highScoresRecived.set(true);
+            System.out.println("High Scores received");
 
-                    synchronized (highScoresRecived) {
-                        highScoresRecived.notifyAll();
-                    }
+            synchronized (highScoresRecived) {
+                highScoresRecived.notifyAll();
             }
         }
     }
 
-    /** Metoda wpisująca dane do buffora wysyłkowego strumienia wyjściowego
-     * @param key nagłówek żądania typu {@code String}
-     * @param value obiekt który ma być wysłany {@code Object}
+    /**
+     * Wczytuje właściwości odpowiedniej klasy z wiadomości {@link Protocol#PROPERTIES}
+     * @param message Wiadomość z plikiem właściwości
+     * @throws IOException w przypadku uszkodzonych danych wiadomości
+     */
+    private void receiveProperties(Message message) throws IOException
+    {
+        String name = message.payload.readUTF();
+        Properties properties = Protocol.readProperties(message.payload);
+
+        switch(name)
+        {
+            case "gameManager":
+                GameManager.loadProperties(properties);
+                break;
+            case "tile":
+                Tile.loadProperties(properties);
+                break;
+            case "bomb":
+                Bomb.loadProperties(properties);
+                break;
+            case "explosion":
+                Explosion.loadProperties(properties);
+                break;
+            case "player":
+                Player.loadProperties(properties);
+                break;
+            case "enemy":
+                Enemy.loadProperties(properties);
+                break;
+            case "collectable":
+                Collectable.loadProperties(properties);
+                break;
+        }
+    }
+
+    /**
+     * Zapamiętuje poziom z wiadomości {@link Protocol#LEVEL} w {@link Level#receivedLevels}
+     * @param message Wiadomość z poziomem
+     * @throws IOException w przypadku uszkodzonych danych wiadomości
+     */
+    private void receiveLevel(Message message) throws IOException
+    {
+        int levelIndex = message.payload.readInt();
+        Level.receivedLevels.put(levelIndex, Protocol.readLines(message.payload));
+    }
+
+    /**
+     * Wczytuje właściwości i poziomy z danych wiadomości {@link Protocol#BOOTSTRAP}
+     * @param payload Dane wiadomości - odebrane od serwera lub wczytane z {@link BootstrapCache}
+     * @throws IOException w przypadku uszkodzonych danych wiadomości
+     */
+    private void applyBootstrap(byte[] payload) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        in.readUTF();
+        for(Message part : Protocol.readFrames(in))
+        {
+            if(part.opcode == Protocol.PROPERTIES)
+                receiveProperties(part);
+            else if(part.opcode == Protocol.LEVEL)
+                receiveLevel(part);
+        }
+    }
+
+    /**
+     * Wysyła zapytanie startowe z wersją konfiguracji zapisanej na dysku. Jeśli wersja jest aktualna,
+     * serwer odpowie bez przesyłania danych, a konfiguracja zostanie wczytana z dysku
+     */
+    void requestBootstrap()
+    {
+        cachedBootstrap = BootstrapCache.load();
+        writeAndFlush(Protocol.encodeGetBootstrap(BootstrapCache.versionOf(cachedBootstrap), true));
+    }
+
+    /**
+     * Czeka na odpowiedź na zapytanie startowe lub na zerwanie połączenia
+     */
+    void awaitBootstrap()
+    {
+        try {
+            bootstrapReceived.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Metoda wpisująca ramkę do buffora wysyłkowego strumienia wyjściowego
+     * @param frame ramka zakodowana metodami klasy {@link Protocol}
      */
-    public void writeToBuffer(String key, Object value)
+    public synchronized void writeToBuffer(byte[] frame)
     {
         try {
-            //objectOutputStream.reset();
-            objectOutputStream.writeObject(new Pair<>(key, value));
+            dataOutputStream.write(frame);
         }
         catch (IOException e) {
             System.out.println(e.getMessage());
         }
     }
 
-    /** Metoda wpisująca dane do buffora wysyłkowego strumienia wyjściowego i zapisująca informację że żądanie ma zostać obsłużone
-     * @param key nagłówek żądania typu {@code String}
-     * @param value obiekt który ma być wysłany {@code Object}
+    /** Metoda wpisująca ramkę do buffora wysyłkowego strumienia wyjściowego i zapisująca informację że żądanie ma zostać obsłużone
+     * @param frame ramka zakodowana metodami klasy {@link Protocol}
      */
-    public void writeAndRemember(String key, Object value)
+    public synchronized void writeAndRemember(byte[] frame)
     {
-        writeToBuffer(key, value);
+        writeToBuffer(frame);
         requestsSent.incrementAndGet();
     }
 
     /**
      * Opróżnienie buffora wysyłkowego strumienia wyjściowego
      */
-    public void flushBuffer()
+    public synchronized void flushBuffer()
     {
         try {
-            objectOutputStream.flush();
+            dataOutputStream.flush();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    /** Metoda wpisująca dane do buffora wysyłkowego strumienia wyjściowego i opróżniająca buffor wysyłkowy strumienia wyjściowego
-     * @param key nagłówek żądania typu {@code String}
-     * @param value obiekt który ma być wysłany {@code Object}
+    /** Metoda wpisująca ramkę do buffora wysyłkowego strumienia wyjściowego i opróżniająca buffor wysyłkowy strumienia wyjściowego
+     * @param frame ramka zakodowana metodami klasy {@link Protocol}
      */
-    public void writeAndFlush(String key, Object value)
+    public synchronized void writeAndFlush(byte[] frame)
     {
-        writeToBuffer(key, value);
+        writeToBuffer(frame);
         flushBuffer();
     }
 
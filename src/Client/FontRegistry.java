@@ -0,0 +1,146 @@
+package Client;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Klasa przechowująca czcionki gry. Każdy plik TTF z katalogu {@code data/fonts} wczytywany jest raz, a czcionki
+ * w kolejnych rozmiarach i stylach tworzone są z niego tylko przy pierwszym użyciu. Przechowuje też kształty
+ * ostatnio rysowanych napisów ({@link GlyphVector}), więc napisy na planszy nie są składane w każdej klatce
+ */
+public final class FontRegistry
+{
+    /**
+     * Katalog z plikami czcionek
+     */
+    private static final String FONT_DIRECTORY = "./data/fonts/";
+
+    /**
+     * Maksymalna liczba przechowywanych kształtów napisów
+     */
+    private static final int MAX_GLYPH_VECTORS = 64;
+
+    /**
+     * Klasa reprezentująca klucz kształtu napisu - czcionkę, tekst i kontekst rysowania
+     */
+    private static final class GlyphKey
+    {
+        /**
+         * Czcionka napisu
+         */
+        final Font font;
+
+        /**
+         * Tekst napisu
+         */
+        final String text;
+
+        /**
+         * Kontekst rysowania - zawiera skalę i ustawienia wygładzania
+         */
+        final FontRenderContext context;
+
+        /**
+         * Konstruktor, przypisuje wartości zmiennym
+         * @param font Czcionka napisu
+         * @param text Tekst napisu
+         * @param context Kontekst rysowania
+         */
+        GlyphKey(Font font, String text, FontRenderContext context)
+        {
+            this.font = font;
+            this.text = text;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(!(o instanceof GlyphKey))
+                return false;
+            GlyphKey other = (GlyphKey)o;
+            return font.equals(other.font) && text.equals(other.text) && context.equals(other.context);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(font, text, context);
+        }
+    }
+
+    /**
+     * Czcionki wczytane z plików, kluczem jest nazwa pliku
+     */
+    private static final Map<String, Font> baseFonts = new ConcurrentHashMap<>();
+
+    /**
+     * Czcionki w konkretnym rozmiarze i stylu, kluczem jest nazwa pliku, styl i rozmiar
+     */
+    private static final Map<String, Font> derivedFonts = new ConcurrentHashMap<>();
+
+    /**
+     * Kształty ostatnio rysowanych napisów, usuwane od najdawniej użytego po przekroczeniu {@link #MAX_GLYPH_VECTORS}
+     */
+    private static final Map<GlyphKey, GlyphVector> glyphVectors = Collections.synchronizedMap(
+            new LinkedHashMap<GlyphKey, GlyphVector>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<GlyphKey, GlyphVector> eldest) {
+                    return size() > MAX_GLYPH_VECTORS;
+                }
+            });
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private FontRegistry() {}
+
+    /**
+     * Zwraca czcionkę o wybranym rozmiarze i stylu, wczytując plik tylko przy pierwszym użyciu
+     * @param name Nazwa pliku typu TrueTypeFont w folderze z czcionkami
+     * @param size Rozmiar czcionki
+     * @param style Styl czcionki
+     * @return Czcionka
+     */
+    public static Font get(String name, int size, int style)
+    {
+        return derivedFonts.computeIfAbsent(name + ":" + style + ":" + size,
+                key -> baseFonts.computeIfAbsent(name, FontRegistry::loadFont).deriveFont(style, size));
+    }
+
+    /**
+     * Rysuje napis obecną czcionką obiektu {@code Graphics2D}, korzystając z zapamiętanego kształtu napisu
+     * @param g Obiekt, na którym rysowany jest napis
+     * @param text Tekst napisu
+     * @param x Składowa x początku linii bazowej
+     * @param y Składowa y początku linii bazowej
+     */
+    public static void drawString(Graphics2D g, String text, float x, float y)
+    {
+        Font font = g.getFont();
+        FontRenderContext context = g.getFontRenderContext();
+        GlyphVector glyphs = glyphVectors.computeIfAbsent(new GlyphKey(font, text, context), key -> font.createGlyphVector(context, text));
+        g.drawGlyphVector(glyphs, x, y);
+    }
+
+    /**
+     * Wczytuje czcionkę z pliku. Jeśli się to nie uda, zwraca czcionkę systemową, by nie ponawiać próby
+     * @param name Nazwa pliku czcionki
+     * @return Czcionka w rozmiarze 1
+     */
+    private static Font loadFont(String name)
+    {
+        try (InputStream in = new FileInputStream(FONT_DIRECTORY + name)) {
+            return Font.createFont(Font.TRUETYPE_FONT, in);
+        } catch (FontFormatException | IOException e) {
+            e.printStackTrace();
+            return new Font(Font.DIALOG, Font.PLAIN, 1);
+        }
+    }
+}
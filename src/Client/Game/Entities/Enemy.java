@@ -5,9 +5,10 @@ import Client.Game.Managers.AnimationManager;
 import Client.Game.Managers.GameManager;
 import Client.Game.Environment.Tile;
 import Client.Game.Utilities.Vector;
+import Client.Game.Rendering.Sprite;
+import Client.Game.Rendering.SpriteCache;
 import Client.Utils;
 
-import javax.swing.*;
 import java.awt.*;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -116,13 +117,15 @@ public abstract class Enemy extends Entity
     /**
      * Wyświetla obecną klatkę animacji
      * @param g Obiekt, na którym rysowane są obrazki
+     * @param alpha Część kroku czasu, jaka upłynęła od ostatniej klatki rozgrywki
      */
-    public void display(Graphics g)
+    public void display(Graphics g, double alpha)
     {
-        ImageIcon currentFrame = walkingAnimations.getFrame();
-        int posCornerX = (int)(position.x - currentFrame.getIconWidth() / 2);
-        int posCornerY = (int)(position.y - currentFrame.getIconHeight() / 2);
-        currentFrame.paintIcon(currentLevel.gamePanel, g, posCornerX, posCornerY);
+        Sprite currentFrame = walkingAnimations.getFrame();
+        Vector displayPosition = interpolatedPosition(alpha);
+        int posCornerX = (int)(displayPosition.x - currentFrame.getWidth() / 2);
+        int posCornerY = (int)(displayPosition.y - currentFrame.getHeight() / 2);
+        SpriteCache.draw(g, currentFrame, posCornerX, posCornerY);
     }
 
     /**
@@ -133,7 +136,7 @@ public abstract class Enemy extends Entity
      */
     public void move(Player player)
     {
-        if (Utils.dist(position.x, position.y, objective.x, objective.y) < 1 || GameManager.frameCount - objectiveSetTS > 180)
+        if (Utils.dist(position.x, position.y, objective.x, objective.y) < 1 || currentLevel.world.getFrameCount() - objectiveSetTS > 180)
             setObjective(player);
 
         Vector velocity = objective.copy().sub(position);
@@ -15,6 +15,11 @@ public abstract class Entity
      */
     public Vector position;
 
+    /**
+     * Pozycja jednostki w poprzedniej klatce rozgrywki, {@code null} jeśli jednostka została przeniesiona
+     */
+    Vector previousPosition;
+
     /**
      * Referencja do obecnego poziomu gry
      */
@@ -39,6 +44,41 @@ public abstract class Entity
         currentLevel = level;
     }
 
+    /**
+     * Ustala poziom gry, na którym znajduje się jednostka - wywoływana przy przejściu gracza na kolejny poziom
+     * @param level Referencja do nowego poziomu gry
+     */
+    public void setCurrentLevel(Level level)
+    {
+        currentLevel = level;
+    }
+
+    /**
+     * Zapamiętuje obecną pozycję jako pozycję poprzedniej klatki - wywoływana na początku każdej klatki rozgrywki
+     */
+    public void savePosition()
+    {
+        if(previousPosition == null)
+            previousPosition = position.copy();
+        else {
+            previousPosition.x = position.x;
+            previousPosition.y = position.y;
+        }
+    }
+
+    /**
+     * Zwraca pozycję do wyświetlenia, leżącą pomiędzy pozycją z poprzedniej klatki a obecną
+     * @param alpha Część kroku czasu, jaka upłynęła od ostatniej klatki rozgrywki
+     * @return Pozycja do wyświetlenia
+     */
+    public Vector interpolatedPosition(double alpha)
+    {
+        Vector previous = previousPosition;
+        if(previous == null)
+            return position;
+        return new Vector(previous.x + (position.x - previous.x) * alpha, previous.y + (position.y - previous.y) * alpha);
+    }
+
     /**
      * Zwraca komórkę, na której obecnie znajduje się jednostka, wykorzystując jej pozycję
      * @return Komórka, na której obecnie znajduje się jednostka
@@ -6,9 +6,10 @@ import Client.Game.Managers.AnimationManager;
 import Client.Game.Managers.GameManager;
 import Client.Game.Environment.Tile;
 import Client.Game.Utilities.Vector;
+import Client.Game.Rendering.Sprite;
+import Client.Game.Rendering.SpriteCache;
 import Client.Utils;
 
-import javax.swing.*;
 import java.awt.*;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -25,10 +26,15 @@ public class Player extends Entity
      */
     public static Properties properties;
 
+    /**
+     * Początkowa szybkość poruszania się gracza
+     */
+    private static double initialMovementSpeed;
+
     /**
      * Szybkość poruszania się gracza
      */
-    private static double movementSpeed;
+    private double movementSpeed;
 
     /**
      * Szerokość fizycznej reprezentacji gracza
@@ -69,13 +75,13 @@ public class Player extends Entity
     /**
      * Flaga mówiąca o tym, czy prędkość gracza została zwiększona
      */
-    private static boolean movementSpeedIncreased = false;
+    private boolean movementSpeedIncreased = false;
 
     /**
      * Ikona serduszka, jednego z przedmiotów, używana do
      * wyświetlania paska życia
      */
-    private ImageIcon heartCollectableIcon;
+    private Sprite heartCollectableIcon;
 
     /**
      * Znacznik czasowy używany do określenia okresu nieśmiertelności
@@ -90,7 +96,8 @@ public class Player extends Entity
     {
         super(level);
         setAnimations();
-        heartCollectableIcon = Utils.collectableFrames.get("heart");
+        heartCollectableIcon = Utils.getCollectableFrame("heart");
+        movementSpeed = initialMovementSpeed;
         lives = 3;
     }
 
@@ -118,7 +125,7 @@ public class Player extends Entity
         {
             colliderWidth = GameManager.DEFAULT_TILE_WIDTH * Double.parseDouble(properties.getProperty("colliderWidthRatio"));
             colliderHeight = GameManager.DEFAULT_TILE_WIDTH * Double.parseDouble(properties.getProperty("colliderHeightRatio"));
-            movementSpeed = Double.parseDouble(properties.getProperty("movementSpeed"));
+            initialMovementSpeed = Double.parseDouble(properties.getProperty("movementSpeed"));
             immortalTime = Integer.parseInt(properties.getProperty("immortalTime"));
             maxLives = Integer.parseInt(properties.getProperty("maxLives"));
         } catch(IllegalArgumentException e) {
@@ -136,6 +143,7 @@ public class Player extends Entity
     public void setCoords(int x, int y)
     {
         position = Utils.coordsToPosition(x, y);
+        previousPosition = null;
     }
 
     /**
@@ -145,15 +153,8 @@ public class Player extends Entity
     {
         int animationSpeed = Integer.parseInt(properties.getProperty("animationSpeed"));
         walkingAnimations = new AnimationManager();
-        ImageIcon[][] arr = Utils.playerFrames;
-        walkingAnimations.addAnimation(arr[0], animationSpeed, "Down");
-        walkingAnimations.addAnimation(arr[1], animationSpeed, "Left");
-        walkingAnimations.addAnimation(arr[2], animationSpeed, "Right");
-        walkingAnimations.addAnimation(arr[3], animationSpeed, "Up");
-        walkingAnimations.addAnimation(arr[4], animationSpeed, "DownLeft");
-        walkingAnimations.addAnimation(arr[5], animationSpeed, "UpLeft");
-        walkingAnimations.addAnimation(arr[6], animationSpeed, "DownRight");
-        walkingAnimations.addAnimation(arr[7], animationSpeed, "UpRight");
+        walkingAnimations.addAnimations(Utils.playerFrames, animationSpeed,
+                "Down", "Left", "Right", "Up", "DownLeft", "UpLeft", "DownRight", "UpRight");
     }
 
     /**
@@ -213,19 +214,22 @@ public class Player extends Entity
     /**
      * Wyświetla obecną klatkę animacji
      * @param g Obiekt, na którym rysowane są obrazki
+     * @param paused Mówi, czy gra jest zapauzowana - wtedy nieśmiertelny gracz nie miga
+     * @param alpha Część kroku czasu, jaka upłynęła od ostatniej klatki rozgrywki
      */
-    public void display(Graphics2D g)
+    public void display(Graphics2D g, boolean paused, double alpha)
     {
-        if(((endFrameCount - GameManager.frameCount)%8 > 4 && immortal) || !immortal || currentLevel.gamePanel.timeManager.paused){
-            ImageIcon currentFrame = walkingAnimations.getFrame();
-            int posCornerX = (int)(position.x - currentFrame.getIconWidth() / 2);
-            int posCornerY = (int)(position.y - currentFrame.getIconHeight() / 2);
-            currentFrame.paintIcon(currentLevel.gamePanel, g, posCornerX, posCornerY);
+        if(((endFrameCount - currentLevel.world.getFrameCount())%8 > 4 && immortal) || !immortal || paused){
+            Sprite currentFrame = walkingAnimations.getFrame();
+            Vector displayPosition = interpolatedPosition(alpha);
+            int posCornerX = (int)(displayPosition.x - currentFrame.getWidth() / 2);
+            int posCornerY = (int)(displayPosition.y - currentFrame.getHeight() / 2);
+            SpriteCache.draw(g, currentFrame, posCornerX, posCornerY);
         }
 
         int x = 500;
         for (int i = 0; i<lives ;i++){
-            heartCollectableIcon.paintIcon(currentLevel.gamePanel, g, x,0);
+            SpriteCache.draw(g, heartCollectableIcon, x,0);
             x = x + 50;
         }
 
@@ -260,7 +264,7 @@ public class Player extends Entity
     /**
      * Metoda obsługująca zwiększanie predkości gracza pod wpływem znajdzki
      */
-    public static void increaseMovementSpeed(){
+    public void increaseMovementSpeed(){
         if (!movementSpeedIncreased){
             movementSpeed++;
             movementSpeedIncreased = true;
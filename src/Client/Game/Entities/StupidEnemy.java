@@ -30,7 +30,7 @@ public class StupidEnemy extends Enemy
     void setObjective(Player player)
     {
         int x = (int)Math.floor(position.x / GameManager.DEFAULT_TILE_WIDTH), y = (int)Math.floor(position.y / GameManager.DEFAULT_TILE_WIDTH);
-        int[] directionsInRandomOrder = Utils.noRepGen(4, 4);
+        int[] directionsInRandomOrder = Utils.noRepGen(4, 4, currentLevel.world.getRandom());
         for (Integer directionsInt : directionsInRandomOrder)
         {
             switch(directionsInt)
@@ -63,7 +63,7 @@ public class StupidEnemy extends Enemy
         }
         if(currentLevel.map[(int)Math.floor(objective.x / GameManager.DEFAULT_TILE_WIDTH)][(int)Math.floor(objective.y / GameManager.DEFAULT_TILE_WIDTH)].getExplosion() != null)
             objective = position;
-        objectiveSetTS = GameManager.frameCount;
+        objectiveSetTS = currentLevel.world.getFrameCount();
     }
 
     /**
@@ -73,9 +73,6 @@ public class StupidEnemy extends Enemy
     {
         int animationSpeed = Integer.parseInt(properties.getProperty("animationSpeed"));
         walkingAnimations = new AnimationManager();
-        walkingAnimations.addAnimation(Utils.stupidEnemyFrames[0], animationSpeed, "left");
-        walkingAnimations.addAnimation(Utils.stupidEnemyFrames[1], animationSpeed, "right");
-        walkingAnimations.addAnimation(Utils.stupidEnemyFrames[2], animationSpeed, "up");
-        walkingAnimations.addAnimation(Utils.stupidEnemyFrames[3], animationSpeed, "down");
+        walkingAnimations.addAnimations(Utils.stupidEnemyFrames, animationSpeed, "left", "right", "up", "down");
     }
 }
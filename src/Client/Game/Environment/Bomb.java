@@ -2,9 +2,10 @@ package Client.Game.Environment;
 
 import Client.Game.Managers.AnimationManager;
 import Client.Game.Utilities.Vector;
+import Client.Game.Rendering.Sprite;
+import Client.Game.Rendering.SpriteCache;
 import Client.Utils;
 
-import javax.swing.*;
 import java.awt.*;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -21,7 +22,8 @@ public class Bomb
     public static Properties properties;
 
     /**
-     * Zasięg wybuchu bomby - w liczbie komórek planszy
+     * Początkowy zasięg wybuchu bomby - w liczbie komórek planszy. Zasięg w trakcie gry przechowuje
+     * {@link Client.Game.Simulation.World}
      */
     public static int range;
 
@@ -108,36 +110,27 @@ public class Bomb
      */
     public void display(Graphics g)
     {
-        ImageIcon currentFrame = burningAnimations.getFrame();
-        int posCornerX = (int)(position.x - currentFrame.getIconWidth() / 2);
-        int posCornerY = (int)(position.y - currentFrame.getIconHeight() / 2);
-        currentFrame.paintIcon(tile.getCurrentLevel().gamePanel, g, posCornerX, posCornerY);
-
-        tick();
+        Sprite currentFrame = burningAnimations.getFrame();
+        int posCornerX = (int)(position.x - currentFrame.getWidth() / 2);
+        int posCornerY = (int)(position.y - currentFrame.getHeight() / 2);
+        SpriteCache.draw(g, currentFrame, posCornerX, posCornerY);
     }
 
     /**
      * Aktualizuje obiekt. Wykonuje {@link AnimationManager#step()}, upływa życie.
      * Po spadnięciu życia do 0, usuwa bombę z poziomu klasy {@link Tile} wywołując {@link Tile#explodeCenter(int, int, int)}
      */
-    private void tick()
+    void tick()
     {
         lifeLeft--;
         burningAnimations.step();
 
         if (lifeLeft <= 0)
         {
-            tile.explodeCenter(tile.getX(), tile.getY(), range);
+            tile.explodeCenter(tile.getX(), tile.getY(), tile.getCurrentLevel().world.getBombRange());
             tile.killBomb();
         }
     }
-
-    /**
-     * Metoda zwiększająca zasięg bomby
-     */
-    public static void increaseRange(){
-        range++;
-    }
 }
 
 
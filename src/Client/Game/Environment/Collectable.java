@@ -3,9 +3,10 @@ package Client.Game.Environment;
 import Client.Game.Entities.Entity;
 import Client.Game.Managers.GameManager;
 import Client.Game.Managers.Level;
+import Client.Game.Rendering.Sprite;
+import Client.Game.Rendering.SpriteCache;
 import Client.Utils;
 
-import javax.swing.*;
 import java.awt.*;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -35,7 +36,7 @@ public class Collectable extends Entity{
     /**
      * Przechowuje obrazek znajdźki
      */
-    private ImageIcon imageFrame;
+    private Sprite imageFrame;
 
     /**
      * Szerokość fizycznej reprezentacji znajdzki
@@ -50,7 +51,12 @@ public class Collectable extends Entity{
     /**
      * Określa czy znajdzka juz zebrana
      */
-    protected boolean collected = false;
+    private boolean collected = false;
+
+    /**
+     * Typ znajdzki - "boots", "gunpowder", "heart" lub "portal"
+     */
+    private final String type;
 
     /**
      * Kontruktor
@@ -58,12 +64,14 @@ public class Collectable extends Entity{
      * @param posY Składowa y pozycji
      * @param level Okresla referencję do poziomu na ktorym znajduje sie znajdzka
      * @param tile Kratka, na której znajduje się znajdźka
+     * @param type Typ znajdzki
      * @param imageFrame Ikona znajdźki
      */
-    protected Collectable(int posX, int posY, Level level, Tile tile, ImageIcon imageFrame) {
+    public Collectable(int posX, int posY, Level level, Tile tile, String type, Sprite imageFrame) {
         super(level);
         super.position = Utils.coordsToPosition(posX,posY);
         this.tile = tile;
+        this.type = type;
         this.imageFrame = imageFrame;
     }
 
@@ -111,16 +119,29 @@ public class Collectable extends Entity{
      */
     public void display(Graphics g) {
         if (this.tile.boostable && !collected){
-            ImageIcon currentFrame = imageFrame;
-            int posCornerX = (int)(super.position.x - currentFrame.getIconWidth() / 2);
-            int posCornerY = (int)(super.position.y - currentFrame.getIconHeight() / 2);
-            currentFrame.paintIcon(tile.getCurrentLevel().gamePanel, g, posCornerX, posCornerY);
+            Sprite currentFrame = imageFrame;
+            int posCornerX = (int)(super.position.x - currentFrame.getWidth() / 2);
+            int posCornerY = (int)(super.position.y - currentFrame.getHeight() / 2);
+            SpriteCache.draw(g, currentFrame, posCornerX, posCornerY);
         }
     }
 
     /**
-     * Metoda implementowana anonimowo przy wczytywaniu znajdziek na poziom gry.
-     * Obsługuje podnoszsenie znajdziek
+     * Oznacza znajdzkę jako podniesioną. Efekt znajdzki stosuje {@link Client.Game.Simulation.World}
+     * @return {@code true}, jeśli znajdzka nie była wcześniej podniesiona
+     */
+    public boolean collect(){
+        if(collected)
+            return false;
+        collected = true;
+        return true;
+    }
+
+    /**
+     * Getter zmiennej {@link #type}
+     * @return Zmienna {@link #type}
      */
-    public void collect(){}
+    public String getType() {
+        return type;
+    }
 }
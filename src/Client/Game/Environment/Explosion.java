@@ -2,9 +2,10 @@ package Client.Game.Environment;
 
 import Client.Game.Managers.AnimationManager;
 import Client.Game.Utilities.Vector;
+import Client.Game.Rendering.Sprite;
+import Client.Game.Rendering.SpriteCache;
 import Client.Utils;
 
-import javax.swing.*;
 import java.awt.*;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -114,19 +115,17 @@ public class Explosion
      */
     public void display(Graphics g)
     {
-        ImageIcon currentFrame = explosionAnimations.getFrame();
-        int posCornerX = (int)(position.x - currentFrame.getIconWidth() / 2);
-        int posCornerY = (int)(position.y - currentFrame.getIconHeight() / 2);
-        currentFrame.paintIcon(tile.getCurrentLevel().gamePanel, g, posCornerX, posCornerY);
-
-        tick();
+        Sprite currentFrame = explosionAnimations.getFrame();
+        int posCornerX = (int)(position.x - currentFrame.getWidth() / 2);
+        int posCornerY = (int)(position.y - currentFrame.getHeight() / 2);
+        SpriteCache.draw(g, currentFrame, posCornerX, posCornerY);
     }
 
     /**
      * Aktualizuje obiekt. Wykonuje {@link AnimationManager#step()}, upływa życie.
      * Po spadnięciu życia do 0, usuwa eksplozję z poziomu klasy {@link Tile} wywołując {@link Tile#extinguish()}
      */
-    private void tick()
+    void tick()
     {
         lifeLeft--;
         explosionAnimations.step();
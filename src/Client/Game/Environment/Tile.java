@@ -5,6 +5,7 @@ import Client.Game.Managers.GameManager;
 import Client.Game.Utilities.Vector;
 import Client.Utils;
 
+import javax.swing.*;
 import java.awt.*;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -25,11 +26,6 @@ public class Tile
      */
     private static int bombLimit;
 
-    /**
-     * Ilość bomb, które obecnie znajdują się na mapie
-     */
-    private static int bombsCurrently = 0;
-
     /**
      * Referencja do obecnego poziomu gry
      */
@@ -118,26 +114,47 @@ public class Tile
     }
 
     /**
-     * Wyświetla obraz tej komórki.
-     * Jeśli zmienne {@link #bomb} lub {@link #explosion} nie są równe {@code null},
-     * wywołuje metody je wyświetlające
-     * @param g Obiekt, na którym rysowane są obrazki
+     * Aktualizuje komórkę o jedną klatkę rozgrywki. Tworzy zaplanowaną eksplozję, niszcząc zniszczalną komórkę,
+     * oraz aktualizuje bombę i eksplozję, jeśli się na niej znajdują
      */
-    public void display(Graphics g)
+    public void step()
     {
-        if (GameManager.frameCount == explosionTS)
+        if (currentLevel.world.getFrameCount() == explosionTS)
         {
             explosion = new Explosion(this);
             if (tileType.destructible) {
                 tileType = Utils.tileTypes.get(0);
                 this.boostable = true;
+                currentLevel.onTileChanged(this);
             }
         }
 
-        if(tileType.texture == null)
+        if(bomb != null)
+            bomb.tick();
+
+        if(explosion != null)
+            explosion.tick();
+    }
+
+    /**
+     * Wyświetla obraz typu tej komórki - rysowany do warstwy nieruchomych komórek planszy
+     * @param g Obiekt, na którym rysowane są obrazki
+     */
+    public void displayTexture(Graphics g)
+    {
+        ImageIcon texture = Utils.tileTextures.get(tileType.ID);
+        if(texture == null)
             return;
-        tileType.texture.paintIcon(currentLevel.gamePanel, g, getX() * GameManager.DEFAULT_TILE_WIDTH, getY() * GameManager.DEFAULT_TILE_WIDTH);
+        texture.paintIcon(null, g, getX() * GameManager.DEFAULT_TILE_WIDTH, getY() * GameManager.DEFAULT_TILE_WIDTH);
+    }
 
+    /**
+     * Wyświetla bombę i eksplozję, jeśli zmienne {@link #bomb} lub {@link #explosion} nie są równe {@code null}.
+     * Obraz samej komórki rysowany jest metodą {@link #displayTexture(Graphics)}
+     * @param g Obiekt, na którym rysowane są obrazki
+     */
+    public void display(Graphics g)
+    {
         if(bomb != null)
             bomb.display(g);
 
@@ -173,12 +190,10 @@ public class Tile
      */
     public void plantBomb()
     {
-        if (tileType.obstacle || bomb != null || bombsCurrently >= bombLimit)
+        if (tileType.obstacle || bomb != null || !currentLevel.world.placeBomb(bombLimit))
             return;
 
         bomb = new Bomb(this);
-        this.getCurrentLevel().gamePanel.getGameManager().getMainActivity().getUiManager().getSoundManager().playBombSound();
-        bombsCurrently++;
     }
 
     /**
@@ -190,7 +205,7 @@ public class Tile
             return;
 
         bomb = null;
-        bombsCurrently--;
+        currentLevel.world.removeBomb();
     }
 
     /**
@@ -203,7 +218,7 @@ public class Tile
     void explodeCenter(int ogX, int ogY, int range)
     {
         explosion = new Explosion(this);
-        this.getCurrentLevel().gamePanel.getGameManager().getMainActivity().getUiManager().getSoundManager().playExplosionSound();
+        currentLevel.world.getListener().bombExploded();
         currentLevel.map[x - 1][y].explode1D(-1, 0, ogX, ogY, range);
         currentLevel.map[x + 1][y].explode1D(1, 0, ogX, ogY, range);
         currentLevel.map[x][y - 1].explode1D(0, -1, ogX, ogY, range);
@@ -225,7 +240,7 @@ public class Tile
         if ((tileType.obstacle && !tileType.destructible) || maxDist > range)
             return;
 
-        explosionTS = GameManager.frameCount + maxDist * Explosion.delay;
+        explosionTS = currentLevel.world.getFrameCount() + maxDist * Explosion.delay;
 
         if (tileType.destructible)
             return;
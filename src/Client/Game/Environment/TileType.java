@@ -1,9 +1,8 @@
 package Client.Game.Environment;
 
-import javax.swing.*;
-
 /**
- * Klasa reprezentuąca typ komórki planszy
+ * Klasa reprezentuąca typ komórki planszy. Przechowuje jedynie dane rozgrywki - tekstury typów wczytywane są
+ * osobno, do {@link Client.Utils#tileTextures}, więc poziom można utworzyć bez wczytywania obrazków
  */
 public class TileType
 {
@@ -12,6 +11,11 @@ public class TileType
      */
     public int ID;
 
+    /**
+     * Nazwa pliku obrazka wyświetlanego na pozycji komórki
+     */
+    public String textureName;
+
     /**
      * Mówi, czy zmienna jest przeszkodą terenową
      */
@@ -22,22 +26,17 @@ public class TileType
      */
     public boolean destructible;
 
-    /**
-     * Obrazek wyświetlany na pozycji komórki
-     */
-    ImageIcon texture;
-
     /**
      * Konstruktor, przypisuje wartości zmiennych
      * @param ID ID komórki
-     * @param texture Mówi, czy zmienna jest przeszkodą terenową
-     * @param obstacle Mówi, czy komórkę można zniszczyć bombą
-     * @param destructible Obrazek wyświetlany na pozyci komórki
+     * @param textureName Nazwa pliku obrazka wyświetlanego na pozycji komórki
+     * @param obstacle Mówi, czy zmienna jest przeszkodą terenową
+     * @param destructible Mówi, czy komórkę można zniszczyć bombą
      */
-    public TileType(int ID, ImageIcon texture, boolean obstacle, boolean destructible)
+    public TileType(int ID, String textureName, boolean obstacle, boolean destructible)
     {
         this.ID = ID;
-        this.texture = texture;
+        this.textureName = textureName;
         this.obstacle = obstacle;
         this.destructible = destructible;
     }
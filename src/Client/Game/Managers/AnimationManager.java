@@ -1,10 +1,12 @@
 package Client.Game.Managers;
 
-import javax.swing.*;
+import Client.Game.Rendering.Sprite;
+
 import java.util.HashMap;
 
 /**
- * Klasa zarządzająca zestawem animacji
+ * Klasa zarządzająca zestawem animacji. Animacje mogą nie mieć obrazków - gdy obrazki gry nie zostały wczytane,
+ * np. przy rozgrywce bez okna - wtedy jedynie odliczają klatki, a {@link #getFrame()} zwraca {@code null}
  */
 public class AnimationManager
 {
@@ -14,9 +16,9 @@ public class AnimationManager
     private static class Animation
     {
         /**
-         * Tablica obrazków animacji
+         * Tablica obrazków animacji - fragmentów atlasu, {@code null}, jeśli obrazki nie zostały wczytane
          */
-        private ImageIcon[] frames;
+        private Sprite[] frames;
 
         /**
          * Ilość kaltek gry przez czas których wyświetlany jest jeden obrazek animacji
@@ -38,7 +40,7 @@ public class AnimationManager
          * @param arr Tablica obrazków animacji
          * @param framesPerImage_ Ilość kaltek gry przez czas których wyświetlany jest jeden obrazek animacji
          */
-        Animation(ImageIcon[] arr, int framesPerImage_)
+        Animation(Sprite[] arr, int framesPerImage_)
         {
             frames = arr;
             framesPerImage = framesPerImage_;
@@ -52,18 +54,19 @@ public class AnimationManager
             framesElapsed++;
             if (framesElapsed >= framesPerImage)
             {
-                currentFrameIndex = (currentFrameIndex + 1) % frames.length;
+                if (frames != null)
+                    currentFrameIndex = (currentFrameIndex + 1) % frames.length;
                 framesElapsed = 0;
             }
         }
 
         /**
          * Zwraca obecny obrazek animacji
-         * @return Obecny obrazek animacji
+         * @return Obecny obrazek animacji lub {@code null}, jeśli animacja nie ma obrazków
          */
-        public ImageIcon getFrame()
+        public Sprite getFrame()
         {
-            return frames[currentFrameIndex];
+            return frames != null ? frames[currentFrameIndex] : null;
         }
     }
 
@@ -79,17 +82,29 @@ public class AnimationManager
 
     /**
      * Dodaje animacje do mapy
-     * @param frames Tablica obrazków animacji
+     * @param frames Tablica obrazków animacji lub {@code null}, jeśli obrazki nie zostały wczytane
      * @param fpf Ilość kaltek gry przez czas których wyświetlany jest jeden obrazek animacji
      * @param name Klucz do mapy - {@link #animations}
      */
-    public void addAnimation(ImageIcon[] frames, int fpf, String name)
+    public void addAnimation(Sprite[] frames, int fpf, String name)
     {
         Animation animation = new Animation(frames, fpf);
         animations.put(name, animation);
         currentAnimation = animation;
     }
 
+    /**
+     * Dodaje do mapy animacje z kolejnych wierszy tablicy obrazków
+     * @param frames Tablica obrazków - jeden wiersz na animację - lub {@code null}, jeśli obrazki nie zostały wczytane
+     * @param fpf Ilość kaltek gry przez czas których wyświetlany jest jeden obrazek animacji
+     * @param names Klucze do mapy - {@link #animations} - w kolejności wierszy tablicy
+     */
+    public void addAnimations(Sprite[][] frames, int fpf, String... names)
+    {
+        for (int i = 0; i < names.length; i++)
+            addAnimation(frames != null ? frames[i] : null, fpf, names[i]);
+    }
+
     /**
      * Ustawia obecną animację
      * @param name Klucz mapy animacji
@@ -116,9 +131,9 @@ public class AnimationManager
 
     /**
      * Zwraza obecny obrazek obecnej animacji
-     * @return Obecny obrazek obecnej animacji
+     * @return Obecny obrazek obecnej animacji lub {@code null}, jeśli animacja nie ma obrazków
      */
-    public ImageIcon getFrame()
+    public Sprite getFrame()
     {
         if (currentAnimation == null)
             return null;
@@ -1,5 +1,7 @@
 package Client.Game.Managers;
 
+import Client.Game.Rendering.AssetLoader;
+import Client.Game.Rendering.GameCanvas;
 import Client.Main;
 import Client.Utils;
 
@@ -11,7 +13,15 @@ import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Klasa odpowiadająca za zarządzanie panelem gry.
@@ -37,42 +47,62 @@ public class GameManager implements Runnable
     /**
      * Zmienna mówiąca ile poziomów jest w grze
      */
-    static int LEVEL_COUNT;
+    public static int LEVEL_COUNT;
 
     /**
      * Zmienna mówiąca o mnożniku przy liczeniu punktów w systemie combo
      */
-    static double COMBO_MULTIPLIER;
+    public static double COMBO_MULTIPLIER;
 
     /**
      * Zmienna mówiąca o mnożniku przy liczeniu punktów w systemie combo
      */
-    static int COMBO_DURATION;
+    public static int COMBO_DURATION;
 
     /**
      * Zmienna mówiąca o początkowej ilośći punktów w każdej grze
      */
-    static int INITIAL_POINTS;
+    public static int INITIAL_POINTS;
 
     /**
-     * Zmienna zliczająca sumę klatek gry od jej początku
+     * Pożądana ilość kaltek na sekundę
      */
-    public static int frameCount = 0;
+    private static int FRAME_RATE;
 
     /**
-     * Pożądana ilość kaltek na sekundę
+     * Pożądana ilość wyświetlanych klatek na sekundę - niezależna od {@link #FRAME_RATE}, bo położenie jednostek
+     * między klatkami rozgrywki jest interpolowane. Domyślnie równa {@link #FRAME_RATE}
      */
-    private static int FRAME_RATE;
+    private static int RENDER_RATE;
 
     /**
-     * Średnia ilość kaltek na sekundę
+     * Mówi, czy klatki rysowane są aktywnie z wątku gry na płótnie {@link GameCanvas}, czy zlecane
+     * metodą {@code repaint()} wątkowi obsługi zdarzeń
      */
-    private static double averageFrameRate = 0;
+    private static boolean ACTIVE_RENDERING;
+
+    /**
+     * Maksymalna liczba klatek rozgrywki wykonywanych jedna po drugiej, by nadrobić opóźnienie.
+     * Pozostała część opóźnienia jest porzucana, by pętla nie goniła czasu w nieskończoność
+     */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * Maksymalny czas (w nanosekundach) doliczany w jednym obiegu pętli - dłuższe przestoje, np. pauzy
+     * odśmiecania pamięci, nie powodują lawiny zaległych klatek
+     */
+    private static final long MAX_FRAME_TIME = 250_000_000L;
+
+    /**
+     * Długość okna (w nanosekundach), po którym wypisywane są statystyki pętli gry - średnia ilość wyświetlonych
+     * klatek i klatek rozgrywki na sekundę oraz średni i najdłuższy czas rysowania klatki
+     */
+    private static final long STATISTICS_INTERVAL = 10_000_000_000L;
 
     /**
      * Określa, czy okno gry powinno się odświeżać. Sterowana przez widoczność okna gry;
      */
-    static boolean isRunning = false;
+    static volatile boolean isRunning = false;
 
     /**
      * Referencja do instancji klasy głównej
@@ -84,6 +114,11 @@ public class GameManager implements Runnable
      */
     JFrame gameWindow;
 
+    /**
+     * Płótno okna gry, {@code null} jeśli aktywne rysowanie jest wyłączone
+     */
+    private GameCanvas gameCanvas;
+
     /**
      * Instancja panelu gry
      */
@@ -122,53 +157,99 @@ public class GameManager implements Runnable
             INITIAL_WINDOW_WIDTH = Integer.parseInt(properties.getProperty("INITIAL_WINDOW_WIDTH"));
             INITIAL_WINDOW_HEIGHT = Integer.parseInt(properties.getProperty("INITIAL_WINDOW_HEIGHT"));
             FRAME_RATE = Integer.parseInt(properties.getProperty("FRAME_RATE"));
+            RENDER_RATE = Integer.parseInt(properties.getProperty("RENDER_RATE", String.valueOf(FRAME_RATE)));
             LEVEL_COUNT = Integer.parseInt(properties.getProperty("LEVEL_COUNT"));
             COMBO_MULTIPLIER = Double.parseDouble(properties.getProperty("COMBO_MULTIPLIER"));
             COMBO_DURATION = Integer.parseInt(properties.getProperty("COMBO_DURATION"));
             INITIAL_POINTS = Integer.parseInt(properties.getProperty("INITIAL_POINTS"));
+            ACTIVE_RENDERING = Boolean.parseBoolean(properties.getProperty("ACTIVE_RENDERING"));
         } catch(IllegalArgumentException e) {
             System.out.println("Wystapil problem przy parsowaniu pliku .properties klasy GameManager");
         }
     }
 
     /**
-     * Inicjalizuje, wywołując {@link #initialize()} oraz wywołuje {@link #doGameLoopIteration()} w pętli
+     * Inicjalizuje, wywołując {@link #initialize()} oraz wywołuje {@link #doGameLoopIteration(double)} w pętli.
+     * Rozgrywka przesuwana jest o stały krok czasu: upływający czas trafia do akumulatora, z którego
+     * zdejmowane są kolejne klatki rozgrywki, a reszta wyznacza interpolację przy wyświetlaniu. Klatki
+     * wyświetlane są według własnego terminu, co {@code 1 / RENDER_RATE} sekundy, niezależnie od klatek rozgrywki.
+     * Między obiegami wątek czeka {@link LockSupport#parkNanos(long)} do bliższego z terminów - następnej
+     * klatki rozgrywki lub następnego wyświetlenia
      */
     @Override
     public void run()
     {
         initialize();
 
-        long totalTimeElapsed = 0;
-        double desiredFrameDuration = 1e3 / FRAME_RATE;
+        long tickDuration = 1_000_000_000L / FRAME_RATE;
+        long renderInterval = 1_000_000_000L / Math.max(1, RENDER_RATE);
+        long accumulator = 0;
+        long previousTime = System.nanoTime();
+        long nextRender = previousTime;
+        long statisticsStart = previousTime;
+        int renderedFrames = 0;
+        int ticks = 0;
+        long worstFrame = 0;
         while(true)
         {
-            long startTime = System.nanoTime();
+            long currentTime = System.nanoTime();
+            accumulator += Math.min(currentTime - previousTime, MAX_FRAME_TIME);
+            previousTime = currentTime;
 
             if(isRunning)
-                doGameLoopIteration();
-
-            long finishTime = System.nanoTime();
-            double frameDuration = (finishTime - startTime) / 1e6;
-            long waitTime = (long)(desiredFrameDuration - frameDuration);
-
-            if(waitTime > 0)
             {
-                try {
-                    Thread.sleep(waitTime);
-                }catch (InterruptedException e){ e.printStackTrace(); }
+                int ticksThisFrame = 0;
+                while(accumulator >= tickDuration && ticksThisFrame < MAX_CATCH_UP_TICKS)
+                {
+                    gamePanel.update();
+                    accumulator -= tickDuration;
+                    ticksThisFrame++;
+                }
+                if(accumulator >= tickDuration)
+                    accumulator %= tickDuration;
+                ticks += ticksThisFrame;
+
+                if(currentTime - nextRender >= 0)
+                {
+                    doGameLoopIteration((double)accumulator / tickDuration);
+                    renderedFrames++;
+                    if(gameCanvas != null)
+                        worstFrame = Math.max(worstFrame, gameCanvas.getLastFrameTime());
+
+                    //po przestoju nie nadrabiamy zaległych wyświetleń, tylko wyznaczamy termin od teraz
+                    nextRender += renderInterval;
+                    if(currentTime - nextRender >= 0)
+                        nextRender = currentTime + renderInterval;
+                }
+            }
+            else
+            {
+                accumulator = 0;
+                nextRender = currentTime;
             }
 
-            totalTimeElapsed += System.nanoTime() - startTime;
-
-            if(!gamePanel.timeManager.paused)
-                frameCount++;
-
-            if(frameCount % FRAME_RATE == 0)
+            if(currentTime - statisticsStart >= STATISTICS_INTERVAL)
             {
-                averageFrameRate = 1e9 * FRAME_RATE / totalTimeElapsed;
-                totalTimeElapsed = 0;
+                if(renderedFrames > 0)
+                {
+                    double seconds = (currentTime - statisticsStart) / 1e9;
+                    String drawing = gameCanvas == null ? "" : ", rysowanie srednio "
+                            + Math.round(gameCanvas.getAverageFrameTime() / 1_000) + " us, najdluzej " + worstFrame / 1_000 + " us";
+                    System.out.println("Klatki na sekunde: " + Math.round(renderedFrames / seconds)
+                            + ", klatki rozgrywki na sekunde: " + Math.round(ticks / seconds) + drawing);
+                }
+                renderedFrames = 0;
+                ticks = 0;
+                worstFrame = 0;
+                statisticsStart = currentTime;
             }
+
+            long now = System.nanoTime();
+            long waitTime = tickDuration - accumulator - (now - currentTime);
+            if(isRunning)
+                waitTime = Math.min(waitTime, nextRender - now);
+            if(waitTime > 0)
+                LockSupport.parkNanos(waitTime);
         }
     }
 
@@ -185,17 +266,42 @@ public class GameManager implements Runnable
     }
 
     /**
-     * Wywołuje metody w klasie {@link Utils} ładujące pliki .property
+     * Wywołuje metody w klasie {@link Utils} wczytujące obrazki gry. Rodziny obrazków wczytywane są równolegle
+     * w puli {@link ForkJoinPool}, w której dzielone jest też wczytywanie plików w obrębie rodziny
      * @throws IOException Występuje przy błędach we wczytywaniu
      */
     private void loadAssets() throws IOException
     {
+        long startTime = System.nanoTime();
         Utils.loadTileTypes();
-        Utils.loadPlayerFrames();
-        Utils.loadEnemyFrames();
-        Utils.loadBombFrames();
-        Utils.loadExplosionFrames();
-        Utils.loadCollectableFrames();
+        List<Callable<Void>> loaders = Arrays.asList(
+                () -> { Utils.loadTileTextures(); return null; },
+                () -> { Utils.loadPlayerFrames(); return null; },
+                () -> { Utils.loadEnemyFrames(); return null; },
+                () -> { Utils.loadBombFrames(); return null; },
+                () -> { Utils.loadExplosionFrames(); return null; },
+                () -> { Utils.loadCollectableFrames(); return null; },
+                () -> { Utils.loadGameoverFrames(); return null; });
+
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            for(Future<Void> loader : pool.invokeAll(loaders))
+                loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano wczytywanie obrazkow", e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof IOException)
+                throw (IOException)e.getCause();
+            throw new IOException("Nie udalo sie wczytac obrazkow", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<String, Long> loadTimes = AssetLoader.getLoadTimes();
+        String slowest = loadTimes.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse("-");
+        System.out.println("Wczytano " + loadTimes.size() + " obrazkow (z pamieci podrecznej: " + AssetLoader.getCacheHits() + ") w "
+                + (System.nanoTime() - startTime) / 1_000_000 + " ms, najdluzej " + slowest + " (" + loadTimes.getOrDefault(slowest, 0L) / 1_000_000 + " ms)");
     }
 
     /**
@@ -218,19 +324,30 @@ public class GameManager implements Runnable
         });
 
         gamePanel = new GamePanel(INITIAL_WINDOW_WIDTH, INITIAL_WINDOW_HEIGHT, this);
-        gameWindow.add(gamePanel);
+        if(ACTIVE_RENDERING) {
+            gameCanvas = new GameCanvas(INITIAL_WINDOW_WIDTH, INITIAL_WINDOW_HEIGHT);
+            gameCanvas.setBackground(gamePanel.getBackground());
+            gameWindow.add(gameCanvas);
+        }
+        else
+            gameWindow.add(gamePanel);
         gameWindow.pack();
 
         gameWindow.setVisible(false);
     }
 
     /**
-     * Wywołuje metody odpowiedzialne za aktualizacje oraz wyświetlanie w panelu gry
+     * Wyświetla klatkę - przy aktywnym rysowaniu rysuje ją od razu na płótnie, w przeciwnym razie zleca
+     * odświeżenie panelu gry
+     * @param interpolation Część kroku czasu, jaka upłynęła od ostatniej klatki rozgrywki, z przedziału [0, 1)
      */
-    private void doGameLoopIteration()
+    private void doGameLoopIteration(double interpolation)
     {
-        gamePanel.update();
-        gamePanel.repaint();
+        gamePanel.setInterpolation(interpolation);
+        if(gameCanvas != null)
+            gameCanvas.render(gamePanel::render);
+        else
+            gamePanel.repaint();
     }
 
     /**
@@ -251,6 +368,14 @@ public class GameManager implements Runnable
         }
     }
 
+    /**
+     * Getter zmiennej {@link #FRAME_RATE}
+     * @return Zmienna {@link #FRAME_RATE}
+     */
+    public static int getFrameRate() {
+        return FRAME_RATE;
+    }
+
     /**
      * Getter
      * @return zwraca referencję do obiektu {@code Main}
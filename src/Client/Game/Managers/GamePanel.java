@@ -1,42 +1,45 @@
 package Client.Game.Managers;
 
 import Client.ClientConnection;
+import Client.FontRegistry;
 import Client.Game.Environment.Collectable;
+import Client.Game.Rendering.Sprite;
+import Client.Game.Rendering.SpriteCache;
+import Client.Game.Simulation.World;
 import Client.Game.Utilities.FadingLabel;
 import Client.Game.Utilities.Vector;
 import Client.Main;
 import Client.UI.CustomLabel;
 import Client.Game.Entities.Enemy;
 import Client.Game.Utilities.GameKeyListener;
-import Client.Game.Entities.Player;
+import Client.Sound.SoundManager;
 import Client.Utils;
+import Common.Protocol;
 import javafx.util.Pair;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.PrintStream;
+import java.io.*;
 import java.net.URL;
+import java.nio.file.*;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * Klasa obsługująca aktualizaje oraz wyświetlanie elementów gry
+ * Klasa wyświetlająca rozgrywkę {@link World} i reagująca na jej zdarzenia - odtwarza dźwięki, wyświetla
+ * napisy oraz obsługuje koniec gry
  */
-public class GamePanel extends JPanel
+public class GamePanel extends JPanel implements World.Listener
 {
     /**
-     * Referncja do aktualnego poziomu gry
+     * Rozgrywka wyświetlana w panelu, podmieniana przy każdym resecie gry
      */
-    private Level currentLevel;
-
-    /**
-     * Numer obecnego poziomu
-     */
-    private int levelNumber;
+    private volatile World world;
 
     /**
      * Referencja do klasy {@link Client.Game.Managers.GameManager}, nadrzędnej w hierarchii
@@ -64,39 +67,39 @@ public class GamePanel extends JPanel
     private final ArrayList<FadingLabel> killScores = new ArrayList<>();
 
     /**
-     * Zmienna odpowiadająca za przechwywanie wyniku gry
-     */
-    private double gameScore;
-
-    /**
-     * Znacznik czasowy momentu, do którego trwa combo
+     * Zawiera informacje o koncu gry
      */
-    private int comboLifeTS;
+    private boolean gameover = false;
 
     /**
-     * Mówi, który poziom comba osiągnął gracz
+     * Animacja końca gry, uruchamiana od początku przy każdej porażce - {@code null}, jeśli brak pliku animacji
      */
-    private int comboIndex;
+    private AnimationManager gameoverAnimation;
 
     /**
-     * Instancja klasy gracza
+     * Część kroku czasu, jaka upłynęła od ostatniej klatki rozgrywki - pozycje jednostek wyświetlane są
+     * pomiędzy poprzednią a obecną klatką
      */
-    public Player player;
+    private volatile double interpolation;
 
     /**
-     * Lista przeciwników na poziomie
+     * Wątek wczytujący w tle kolejny poziom, podczas gdy gracz przechodzi obecny
      */
-    ArrayList<Enemy> enemies = new ArrayList<>();
+    private static final ExecutorService levelLoader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LevelLoader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
-     * Lista znajdziek na poziomie
+     * Wynik wczytywania kolejnego poziomu w tle, {@code null} jeśli nic nie jest wczytywane
      */
-    private ArrayList<Collectable> collectables = new ArrayList<>();
+    private Future<Level> nextLevelFuture;
 
     /**
-     * Zawiera informacje o koncu gry
+     * Numer poziomu wczytywanego w tle
      */
-    private boolean gameover = false;
+    private int nextLevelIndex;
 
     /**
      * Konstruktor tworzący panel gry i inicjalizujący pola klasy
@@ -110,11 +113,6 @@ public class GamePanel extends JPanel
         setLayout(null);
         this.gameManager = gameManager;
 
-        currentLevel = new Level(this);
-
-        timeLabel = "CZAS: 00:00:00";
-        scoreLabel = "WYNIK: " + (int)gameScore;
-
         GameKeyListener keyListener = new GameKeyListener(this);
         gameManager.gameWindow.addKeyListener(keyListener);
 
@@ -122,31 +120,24 @@ public class GamePanel extends JPanel
     }
 
     /**
-     * Metoda resetująca grę
+     * Metoda resetująca grę - tworzy nową rozgrywkę
      * @param loadLevel Mówi, czy wczytać poziom przy okazji resetu (prawda przy wywoływaniu dla pierwszego poziomu)
      */
     void resetGame(boolean loadLevel)
     {
-        levelNumber = 1;
-        gameScore = GameManager.INITIAL_POINTS;
-        comboLifeTS = -1;
+        World newWorld = new World(this::takeLevel, this, System.nanoTime());
         if(loadLevel)
-        {
-            try {
-                currentLevel.loadLevelFromFile(levelNumber);
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
+            newWorld.start();
+        world = newWorld;
 
         timeLabel = "CZAS: 00:00:00";
-        scoreLabel = "WYNIK: " + (int)gameScore;
+        scoreLabel = "WYNIK: " + (int)newWorld.getScore();
         timeManager = new TimeManager(1.0);
         gameover = false;
     }
 
     /**
-     * Metoda wywołująca funkcje wyświetlające wszystkie elementy gry
+     * Metoda wyświetlająca grę na panelu - używana, gdy okno gry nie korzysta z aktywnego rysowania
      * @param g Zmienna, która umożliwia rysowanie po panelu
      */
     @Override
@@ -155,18 +146,37 @@ public class GamePanel extends JPanel
         super.paintComponent(g);
 
         Dimension gameWindowDimension = gameManager.gameWindow.getContentPane().getSize();
-        double scaleX = gameWindowDimension.getWidth() / (GameManager.DEFAULT_TILE_WIDTH * currentLevel.mapWidth);
-        double scaleY = gameWindowDimension.getHeight() / (GameManager.DEFAULT_TILE_WIDTH * currentLevel.mapHeight);
         Graphics2D g2d = (Graphics2D)g.create();
+        render(g2d, gameWindowDimension.width, gameWindowDimension.height);
+        g2d.dispose();
+    }
+
+    /**
+     * Metoda wywołująca funkcje wyświetlające wszystkie elementy gry, przeskalowane do podanego rozmiaru.
+     * Wywoływana z {@link #paintComponent(Graphics)} lub bezpośrednio z wątku gry przy aktywnym rysowaniu
+     * @param g2d Obiekt, na którym rysowana jest gra
+     * @param width Szerokość obszaru rysowania
+     * @param height Wysokość obszaru rysowania
+     */
+    void render(Graphics2D g2d, int width, int height)
+    {
+        World world = this.world;
+        Level currentLevel = world.getLevel();
+        if(currentLevel == null)
+            return;
+
+        double scaleX = (double)width / (GameManager.DEFAULT_TILE_WIDTH * currentLevel.mapWidth);
+        double scaleY = (double)height / (GameManager.DEFAULT_TILE_WIDTH * currentLevel.mapHeight);
         g2d.scale(scaleX, scaleY);
 
+        double alpha = timeManager.paused ? 1 : interpolation;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         currentLevel.displayLevel(g2d);
-        player.display(g2d);
-        for(Enemy enemy : enemies)
-            enemy.display(g2d);
+        world.getPlayer().display(g2d, timeManager.paused, alpha);
+        for(Enemy enemy : world.getEnemies())
+            enemy.display(g2d, alpha);
 
-        for (Collectable collectable : collectables)
+        for (Collectable collectable : world.getCollectables())
             collectable.display(g2d);
 
         displayLabels(g2d);
@@ -181,83 +191,122 @@ public class GamePanel extends JPanel
     }
 
     /**
-     * Metoda aktualizująca elementy gry
+     * Metoda aktualizująca elementy gry - przesuwa rozgrywkę o jedną klatkę, o ile gra nie jest zapauzowana,
+     * oraz animację końca gry
      */
     public void update() {
-        //System.out.println(gameScore + "\tCombo " + (comboIndex == 0 ? "OFF" : "ON"));
-        if (!timeManager.paused) {
-            player.move();
-
-            for (int i = enemies.size() - 1; i >= 0; i--) {
-                Enemy enemy = enemies.get(i);
-                if(player.collideEnemies(enemy)){
-                    if (!player.isImmortal()) {
-                        this.getGameManager().getMainActivity().getUiManager().getSoundManager().playHitSound();
-                    }
-                    player.loseLife(GameManager.frameCount);
-                }
-                if (enemy.collideExplosion(enemy.currentTile()))
-                {
-                    enemy.setDead();
-                    this.getGameManager().getMainActivity().getUiManager().getSoundManager().playHitSound();
-                }
+        if (!timeManager.paused)
+            world.step();
+        if (gameover && gameoverAnimation != null)
+            gameoverAnimation.step();
+    }
 
-                enemy.move(player);
-                if (enemy.isDead()) {
-                    enemies.remove(i);
+    /**
+     * Setter zmiennej {@link #interpolation}
+     * @param interpolation Część kroku czasu, jaka upłynęła od ostatniej klatki rozgrywki
+     */
+    void setInterpolation(double interpolation) {
+        this.interpolation = interpolation;
+    }
 
-                    double deltaScore = enemy.getPointValue() * (1d + comboIndex * GameManager.COMBO_MULTIPLIER);
-                    killScores.add(new FadingLabel("+" + (int)deltaScore, (int)enemy.position.x, (int)enemy.position.y));
+    /**
+     * Getter zmiennej {@link #world}
+     * @return Zmienna {@link #world}
+     */
+    public World getWorld() {
+        return world;
+    }
 
-                    comboLifeTS = GameManager.frameCount + GameManager.COMBO_DURATION;
-                    gameScore += deltaScore;
-                    comboIndex++;
-                }
-            }
+    /**
+     * Odtwarza dźwięk położenia bomby
+     */
+    @Override
+    public void bombPlanted() {
+        getSoundManager().playBombSound();
+    }
 
-            if(GameManager.frameCount == comboLifeTS)
-                comboIndex = 0;
+    /**
+     * Odtwarza dźwięk wybuchu bomby
+     */
+    @Override
+    public void bombExploded() {
+        getSoundManager().playExplosionSound();
+    }
 
-            if(player.collideCollectable(player.currentTile().getCollectable())){
-                player.currentTile().getCollectable().collect();
-            }
+    /**
+     * Odtwarza dźwięk zranienia gracza
+     */
+    @Override
+    public void playerHit() {
+        getSoundManager().playHitSound();
+    }
 
-            if(player.collideExplosion(player.currentTile())){
-                if (!player.isImmortal()) {
-                    this.getGameManager().getMainActivity().getUiManager().getSoundManager().playHitSound();
-                }
-                player.loseLife(GameManager.frameCount);
-            }
+    /**
+     * Odtwarza dźwięk trafienia i wyświetla punkty otrzymane za zabicie przeciwnika
+     * @param enemy Zabity przeciwnik
+     * @param points Punkty otrzymane za zabicie, z uwzględnieniem comba
+     */
+    @Override
+    public void enemyKilled(Enemy enemy, double points) {
+        getSoundManager().playHitSound();
+        killScores.add(new FadingLabel("+" + (int)points, (int)enemy.position.x, (int)enemy.position.y));
+    }
 
-            if (GameManager.frameCount >= player.getEndFrameCount()){
-                player.setImmortal(false,0);
-            }
+    /**
+     * Odtwarza dźwięk podniesienia znajdzki lub, w przypadku portalu, przejścia na kolejny poziom
+     * @param type Typ znajdzki
+     */
+    @Override
+    public void collected(String type) {
+        if(type.equals("portal"))
+            getSoundManager().playGateSound();
+        else
+            getSoundManager().playCollectSound();
+    }
 
-            if (player.getLives() == 0){
-                if (!player.isDead()){
-                    player.setDead(true);
-                    //gameManager.getMainActivity().getUiManager().soundManager.playGameOverTheme();
-                    gameover = true;
-                    endGame(false);
-                    timeManager.pause();
-                }
-            }
-        }
+    /**
+     * Zleca wczytanie w tle poziomu następującego po rozpoczętym
+     * @param levelNumber Numer poziomu
+     */
+    @Override
+    public void levelStarted(int levelNumber) {
+        prefetchLevel(levelNumber + 1);
+    }
+
+    /**
+     * Kończy grę i zatrzymuje czas
+     * @param victory Mówi, czy gracz przeszedł wszystkie poziomy
+     */
+    @Override
+    public void gameEnded(boolean victory) {
+        if(!victory)
+            showEndGameInfo();
+        endGame(victory);
+        timeManager.pause();
+    }
+
+    /**
+     * Zwraca menedżera dźwięków
+     * @return Menedżer dźwięków
+     */
+    private SoundManager getSoundManager() {
+        return gameManager.getMainActivity().getUiManager().getSoundManager();
     }
 
     /**
-     * Metoda wyświetlająca napisy informacyjne na planszy gry
+     * Metoda wyświetlająca napisy informacyjne na planszy gry. Czcionki i kształty napisów pochodzą
+     * z {@link FontRegistry}, więc w trakcie rysowania nie są czytane żadne pliki
      * @param g2d Obiekt klasy {@code Graphics2D}
      */
     private void displayLabels(Graphics2D g2d) {
-        Font pixelFont = Utils.createCustomFont("Typecast.ttf", 35, Font.PLAIN);
+        Font pixelFont = FontRegistry.get("Typecast.ttf", 35, Font.PLAIN);
         g2d.setFont(pixelFont);
         g2d.setColor(Color.WHITE);
         Vector textPos = new Vector(10, 25);
-        g2d.drawString(timeLabel, (int)textPos.x, (int)textPos.y);
+        FontRegistry.drawString(g2d, timeLabel, (int)textPos.x, (int)textPos.y);
 
         textPos = new Vector(210, 25);
-        g2d.drawString(scoreLabel, (int)textPos.x, (int)textPos.y);
+        FontRegistry.drawString(g2d, scoreLabel, (int)textPos.x, (int)textPos.y);
 
         for(int i = killScores.size() - 1; i >= 0; i--) {
             killScores.get(i).displayAndUpdate(g2d, pixelFont);
@@ -267,7 +316,7 @@ public class GamePanel extends JPanel
 
         if(timeManager.paused) {
             g2d.setColor(Color.RED);
-            pixelFont = Utils.createCustomFont("Typecast.ttf", 70, Font.PLAIN);
+            pixelFont = FontRegistry.get("Typecast.ttf", 70, Font.PLAIN);
             textPos = new Vector(GameManager.INITIAL_WINDOW_WIDTH / 2d, GameManager.INITIAL_WINDOW_HEIGHT / 2d);
             Utils.drawCenteredString(g2d, "PAUZA", textPos, pixelFont);
         }
@@ -281,25 +330,49 @@ public class GamePanel extends JPanel
             String currentGameTime = LocalTime.MIDNIGHT.plus(timeManager.calculateCurrentGameTime()).format(DateTimeFormatter.ofPattern("HH:mm:ss"));
             double gameTime = timeManager.calculatePointsToSubtractDuringGame();
             timeLabel = "CZAS: " + currentGameTime;
-            scoreLabel = "WYNIK: " + ((int)gameScore - (int)gameTime);
+            scoreLabel = "WYNIK: " + ((int)world.getScore() - (int)gameTime);
         }
     }
 
     /**
-     * Metoda obsługująca przechodzenie na następny poziom
+     * Źródło poziomów rozgrywki - zwraca poziom wczytany w tle, jeśli to ten, a w przeciwnym razie
+     * wczytuje go w bieżącym wątku
+     * @param levelIndex Numer poziomu
+     * @return Poziom
+     * @throws FileNotFoundException Występuje, gdy brakuje lokalnego pliku poziomu
      */
-    void nextLevel()
+    private Level takeLevel(int levelIndex) throws FileNotFoundException
     {
-        levelNumber++;
-        if(levelNumber > GameManager.LEVEL_COUNT) {
-            endGame(true);
-            timeManager.pause();
-            return;
+        Level level = null;
+        if(nextLevelFuture != null && nextLevelIndex == levelIndex)
+        {
+            try {
+                level = nextLevelFuture.get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+            }
+            nextLevelFuture = null;
         }
+        return level != null ? level : Level.loadLevelFromFile(levelIndex);
+    }
 
-        try {
-            currentLevel.loadLevelFromFile(levelNumber);
-        } catch (FileNotFoundException e) { e.printStackTrace(); }
+    /**
+     * Zleca wczytanie poziomu w tle. Poziom, który jest już wczytywany, nie jest wczytywany ponownie
+     * @param levelIndex Numer poziomu
+     */
+    private void prefetchLevel(int levelIndex)
+    {
+        if(nextLevelFuture != null && nextLevelIndex == levelIndex)
+            return;
+        if(nextLevelFuture != null)
+            nextLevelFuture.cancel(false);
+
+        nextLevelFuture = null;
+        if(levelIndex <= GameManager.LEVEL_COUNT)
+        {
+            nextLevelIndex = levelIndex;
+            nextLevelFuture = levelLoader.submit(() -> Level.loadLevelFromFile(levelIndex));
+        }
     }
 
     /**
@@ -309,7 +382,7 @@ public class GamePanel extends JPanel
     private void endGame(boolean victory)
     {
         timeManager.stop();
-        double totalPoints = gameScore - timeManager.calculatePointsToSubtract();
+        double totalPoints = world.getScore() - timeManager.calculatePointsToSubtract();
         String result = victory ? "Wygrana! " : "Porażka. ";
         String text = result + "Twój wynik: " + (int)totalPoints;
         gameManager.getMainActivity().getUiManager().setGameResult(text);
@@ -318,7 +391,7 @@ public class GamePanel extends JPanel
             if (Utils.getOnlineGaming()){
                 //wysylka wyniku na serwer
                 ClientConnection clientConnection = Main.instance.clientConnection;
-                clientConnection.writeAndFlush("UPDATE Highscore",new Pair(Main.instance.getUiManager().getNick(),String.valueOf((int)totalPoints)));
+                clientConnection.writeAndFlush(Protocol.encodeHighscore(Main.instance.getUiManager().getNick(), (int)totalPoints));
             }
             else{
                 //zapis lokalnie
@@ -332,24 +405,24 @@ public class GamePanel extends JPanel
      */
     public void showEndGameInfo(){
         //timeManager.pause();
+        if(!gameover && Utils.gameoverFrames != null) {
+            AnimationManager animation = new AnimationManager();
+            animation.addAnimation(Utils.gameoverFrames, 1, "gameover");
+            gameoverAnimation = animation;
+        }
         this.gameover = true;
     }
 
     /**
-     * Getter do listy znajdziek
-     * @return lista znajdziek
-     */
-    ArrayList<Collectable> getCollectables() {
-        return collectables;
-    }
-
-    /**
-     * Metoda pokazująca gif w przypadku porażki
+     * Metoda pokazująca animację w przypadku porażki. Klatki animacji wczytywane są raz, przy starcie gry
      * @param g2d obiekt typu Graphics2D używany do rysowania
      */
     private void showGif(Graphics2D g2d){
-        ImageIcon gameover = new ImageIcon("./data/img/gameover/gameover.gif");
-        gameover.paintIcon(this,g2d,GameManager.INITIAL_WINDOW_HEIGHT/2 - gameover.getIconWidth()/2,GameManager.INITIAL_WINDOW_WIDTH/2 - gameover.getIconHeight()/2);
+        AnimationManager animation = gameoverAnimation;
+        if(animation == null)
+            return;
+        Sprite frame = animation.getFrame();
+        SpriteCache.draw(g2d, frame, GameManager.INITIAL_WINDOW_WIDTH/2 - frame.getWidth()/2, GameManager.INITIAL_WINDOW_HEIGHT/2 - frame.getHeight()/2);
     }
 
     public GameManager getGameManager() {
@@ -367,22 +440,24 @@ public class GamePanel extends JPanel
         if (scores != null){
             scores = sortScores(scores, new Pair<String, String>(name,result));
 
-            try{
-                File scoresFile = new File("./data/info/general/highScores.txt");
-                scoresFile.delete();
-
-                try {
-                    PrintStream out = new PrintStream("./data/info/general/highScores.txt");
-
+            //zapis do pliku tymczasowego i podmiana - przerwany zapis nie niszczy tabeli
+            Path scoresFile = Paths.get("./data/info/general/highScores.txt");
+            try {
+                Path temporaryFile = Files.createTempFile(scoresFile.getParent(), "highScores", ".tmp");
+                try (PrintStream out = new PrintStream(new FileOutputStream(temporaryFile.toFile()), false, "UTF-8")) {
                     for (Pair<String,String> pair : scores){
                         out.println(pair.getKey() + " " + pair.getValue());
                     }
+                    if (out.checkError())
+                        throw new IOException("Nie udalo sie zapisac wynikow");
                 }
-                catch (FileNotFoundException e){
-                    e.printStackTrace();
+                try {
+                    Files.move(temporaryFile, scoresFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryFile, scoresFile, StandardCopyOption.REPLACE_EXISTING);
                 }
             }
-            catch(Exception e){
+            catch (IOException e){
                 e.printStackTrace();
             }
         }
@@ -395,9 +470,8 @@ public class GamePanel extends JPanel
      */
     private ArrayList<Pair<String,String>> loadScoresFromFile(){
 
-        try {
+        try (Scanner scanner = new Scanner(new File("./data/info/general/highScores.txt"), "UTF-8")) {
             ArrayList<Pair<String,String>> scores = new ArrayList<>();
-            Scanner scanner = new Scanner(new File("./data/info/general/highScores.txt"));
 
             String[] results;
             while(scanner.hasNextLine()){
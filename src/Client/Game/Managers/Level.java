@@ -1,22 +1,26 @@
 package Client.Game.Managers;
 
 import Client.ClientConnection;
-import Client.Game.Entities.Player;
+import Client.Game.Entities.Enemy;
 import Client.Game.Entities.SmartEnemy;
 import Client.Game.Entities.StupidEnemy;
-import Client.Game.Environment.Bomb;
 import Client.Game.Environment.Collectable;
 import Client.Game.Environment.Tile;
+import Client.Game.Pathfinding.DistanceField;
+import Client.Game.Pathfinding.PathFinder;
+import Client.Game.Rendering.TileLayer;
+import Client.Game.Simulation.World;
 import Client.Main;
-import Client.Sound.SoundManager;
 import Client.Utils;
+import Common.Protocol;
 
 import java.awt.*;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.sql.ClientInfoStatus;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Klasa przechowująca mapę poziomów oraz ich wczytywanie z plików.
@@ -24,9 +28,9 @@ import java.util.Scanner;
 public class Level
 {
     /**
-     * Referencja do klasy {@link Client.Game.Managers.GamePanel}, nadrzędnej w hierarchii
+     * Referencja do rozgrywki, w której poziom jest używany - ustawiana przy rozpoczęciu poziomu
      */
-    public GamePanel gamePanel;
+    public World world;
 
     /**
      * Dwuwymiarowa tablica komórek reprezentująca mapę poziomu
@@ -44,29 +48,74 @@ public class Level
     public int mapHeight;
 
     /**
-     * Lista przechowywująca otrzymane dane konfiguracyjne dotyczące levelu
+     * Lista przeciwników na poziomie
      */
-    public static ArrayList<String> receivedLevelLines = null;
+    public final ArrayList<Enemy> enemies = new ArrayList<>();
 
     /**
-     * Konstruktor, ustala referencję do klasy {@link Client.Game.Managers.GamePanel}
-     * @param gamePanel Referencja do klasy {@link Client.Game.Managers.GamePanel}
+     * Lista znajdziek na poziomie
      */
-    public Level(GamePanel gamePanel)
+    public final ArrayList<Collectable> collectables = new ArrayList<>();
+
+    /**
+     * Początkowa współrzędna x gracza, wyrażona w komórkach
+     */
+    public int playerStartX;
+
+    /**
+     * Początkowa współrzędna y gracza, wyrażona w komórkach
+     */
+    public int playerStartY;
+
+    /**
+     * Warstwa nieruchomych komórek planszy, rysowana raz i wyświetlana w całości w każdej klatce
+     */
+    private final TileLayer tileLayer = new TileLayer(this);
+
+    /**
+     * Wyszukiwanie ścieżek po planszy poziomu, tworzone po wczytaniu mapy
+     */
+    private PathFinder pathFinder;
+
+    /**
+     * Pole odległości od komórki gracza, wspólne dla przeciwników na poziomie, tworzone po wczytaniu mapy
+     */
+    private DistanceField distanceField;
+
+    /**
+     * Poziomy otrzymane od serwera, kluczem jest numer poziomu. Uzupełniana odpowiedzią na zapytanie startowe,
+     * dzięki czemu kolejne poziomy nie wymagają osobnych zapytań
+     */
+    public static final Map<Integer, ArrayList<String>> receivedLevels = new ConcurrentHashMap<>();
+
+    /**
+     * Tworzy poziom na podstawie danych od serwera lub, w trybie offline, z pliku. Nie modyfikuje stanu
+     * rozgrywki, więc może być wywoływana w tle, podczas gry na poprzednim poziomie
+     * @param levelIndex Indeks poziomu
+     * @return Wczytany poziom
+     * @throws FileNotFoundException Występuje, gdy brakuje lokalnego pliku poziomu
+     */
+    public static Level loadLevelFromFile(int levelIndex) throws FileNotFoundException
     {
-        this.gamePanel = gamePanel;
+        Level level = new Level();
+        level.loadLevel(readLevelLines(levelIndex));
+        return level;
     }
 
-    void loadLevelFromFile(int levelIndex) throws FileNotFoundException
+    /**
+     * Pobiera linijki pliku poziomu - z poziomów otrzymanych od serwera, zapytaniem do serwera lub z pliku lokalnego.
+     * Synchronizowana, bo odpowiedź serwera na zapytanie o poziom sygnalizowana jest jedną flagą
+     * @param levelIndex Indeks poziomu
+     * @return Linijki pliku poziomu
+     * @throws FileNotFoundException Występuje, gdy brakuje lokalnego pliku poziomu
+     */
+    private static synchronized ArrayList<String> readLevelLines(int levelIndex) throws FileNotFoundException
     {
-        boolean readFromLocal = !Utils.getOnlineGaming();
-        GameManager.isRunning = false;
-
-        if(Utils.getOnlineGaming())
+        if(Utils.getOnlineGaming() && !receivedLevels.containsKey(levelIndex))
         {
             ClientConnection clientConnection = Main.instance.clientConnection;
             clientConnection.levelReceived.set(false);
-            clientConnection.writeAndFlush("GET Level " + levelIndex, null);
+            clientConnection.writeAndFlush(Protocol.encodeGetLevel(levelIndex));
 
             synchronized (clientConnection.levelReceived)
             {
@@ -79,35 +128,25 @@ public class Level
                     }
                 }
             }
-
-            if(receivedLevelLines == null)
-                readFromLocal = true;
-            else
-                loadLevel(receivedLevelLines, levelIndex);
         }
 
-        if(readFromLocal && GameManager.LEVEL_COUNT >= levelIndex)
-        {
-            ArrayList<String> lines = new ArrayList<>();
-            Scanner mapScanner = new Scanner(new File("./data/levels/" + levelIndex + ".txt"));
+        if(Utils.getOnlineGaming() && receivedLevels.containsKey(levelIndex))
+            return receivedLevels.get(levelIndex);
+
+        ArrayList<String> lines = new ArrayList<>();
+        try (Scanner mapScanner = new Scanner(new File("./data/levels/" + levelIndex + ".txt"))) {
             while (mapScanner.hasNextLine())
                 lines.add(mapScanner.nextLine());
-
-            loadLevel(lines, levelIndex);
-        }
-
-        if (!GameManager.isRunning){
-            GameManager.isRunning = true;
         }
+        return lines;
     }
 
     /**
      * Wczytuje poziom z plików
      * @param lines Lista linijek danych z pliku poziomu
-     * @param levelIndex Indeks pozimu
      * @throws IllegalArgumentException Występuje przy błędzie parsowania danych z pliku
      */
-    void loadLevel(ArrayList<String> lines, int levelIndex) throws IllegalArgumentException
+    private void loadLevel(ArrayList<String> lines) throws IllegalArgumentException
     {
         //wczytywanie komorek mapy
         String[] mapDimensions = lines.get(0).split(" ");
@@ -123,16 +162,15 @@ public class Level
                 map[x][y] = new Tile(x, y, Utils.tileTypes.get(Character.getNumericValue(rowTiles[x])), this);
             y++;
         }
+        pathFinder = new PathFinder(this);
+        distanceField = new DistanceField(this);
 
-        //wczytywanie gracza
-        if(levelIndex == 1) //jeśli to pierwszy poziom, zainicjalizuj zmienną
-            gamePanel.player = new Player(this);
+        //wczytywanie pozycji gracza
         String[] playerCoordsString = lines.get(lines.size() - 1).split(" ");
-        gamePanel.player.setCoords(Integer.parseInt(playerCoordsString[0]), Integer.parseInt(playerCoordsString[1]));
-        gamePanel.player.setMortal();
+        playerStartX = Integer.parseInt(playerCoordsString[0]);
+        playerStartY = Integer.parseInt(playerCoordsString[1]);
 
         //wczytywanie przeciwnikow
-        gamePanel.enemies.clear();
         int enemyCount = Integer.parseInt(lines.get(mapHeight + 1));
         for(int i = mapHeight + 2; i < mapHeight + 2 + enemyCount; i++)
         {
@@ -143,16 +181,15 @@ public class Level
             switch(type)
             {
                 case "stupid":
-                    gamePanel.enemies.add(new StupidEnemy(posX, posY, this));
+                    enemies.add(new StupidEnemy(posX, posY, this));
                     break;
                 case "smart":
-                    gamePanel.enemies.add(new SmartEnemy(posX, posY, this));
+                    enemies.add(new SmartEnemy(posX, posY, this));
                     break;
             }
         }
 
         //wczytywanie znajdziek
-        gamePanel.getCollectables().clear();
         int collectibleCount = Integer.parseInt(lines.get(mapHeight + enemyCount + 2));
         for(int i = mapHeight + enemyCount + 3; i < mapHeight + enemyCount + 3 + collectibleCount; i++)
         {
@@ -161,46 +198,47 @@ public class Level
             int posY = Integer.parseInt(collectableInfo[1]);
             String type = collectableInfo[2];
 
-            gamePanel.getCollectables().add(new Collectable(posX, posY, this, map[posX][posY], Utils.collectableFrames.get(type)){
-                @Override
-                public void collect(){
-                    if(!this.collected){
-
-                        SoundManager soundManager = gamePanel.getGameManager().getMainActivity().getUiManager().getSoundManager();
-
-                        switch(type){
-                            case "boots":
-                                Player.increaseMovementSpeed();
-                                soundManager.playCollectSound();
-                                break;
-                            case "gunpowder":
-                                Bomb.increaseRange();
-                                soundManager.playCollectSound();
-                                break;
-                            case "heart":
-                                gamePanel.player.addLife();
-                                soundManager.playCollectSound();
-                                break;
-                            case "portal":
-                                gamePanel.nextLevel();
-                                soundManager.playGateSound();
-                                break;
-                        }
-                        this.collected = true;
-
-                    }
-                }
-            });
+            collectables.add(new Collectable(posX, posY, this, map[posX][posY], type, Utils.getCollectableFrame(type)));
         }
         assignCollectablestoTiles();
     }
 
     /**
-     * Rysuje mapę, wyświetlając każdą komórkę oddzielnie w pętli
+     * Oznacza komórkę, której typ się zmienił, do ponownego narysowania w warstwie {@link #tileLayer}
+     * oraz do naprawy w polu {@link #distanceField}
+     * @param tile Zmieniona komórka
+     */
+    public void onTileChanged(Tile tile)
+    {
+        tileLayer.invalidate(tile);
+        distanceField.invalidate(tile.getX(), tile.getY());
+    }
+
+    /**
+     * Getter zmiennej {@link #pathFinder}
+     * @return Zmienna {@link #pathFinder}
+     */
+    public PathFinder getPathFinder()
+    {
+        return pathFinder;
+    }
+
+    /**
+     * Getter zmiennej {@link #distanceField}
+     * @return Zmienna {@link #distanceField}
+     */
+    public DistanceField getDistanceField()
+    {
+        return distanceField;
+    }
+
+    /**
+     * Rysuje mapę - wyświetla warstwę nieruchomych komórek, a następnie bomby i eksplozje na komórkach
      * @param g Referencja do instancji klasy {@code Graphics} w panelu gry
      */
     void displayLevel(Graphics g)
     {
+        tileLayer.display(g);
         for(int x = 0; x < mapWidth; x++)
             for(int y = 0; y < mapHeight; y++)
                 map[x][y].display(g);
@@ -210,7 +248,7 @@ public class Level
      * Metoda ustawia referencje do znajdziek w odpowiednich komorkach
      */
     private void assignCollectablestoTiles(){
-        for (Collectable collectable: this.gamePanel.getCollectables()) {
+        for (Collectable collectable: collectables) {
             collectable.currentTile().setCollectable(collectable);
         }
     }
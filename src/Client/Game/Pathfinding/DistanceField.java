@@ -0,0 +1,277 @@
+package Client.Game.Pathfinding;
+
+import Client.Game.Managers.Level;
+
+import java.util.Arrays;
+
+/**
+ * Pole odległości od komórki celu - zwykle komórki gracza - do wszystkich osiągalnych komórek planszy. Pole jest
+ * wspólne dla wszystkich przeciwników na poziomie, więc koszt ich ruchu nie zależy od ich liczby - każdy z nich
+ * odczytuje jedynie, który sąsiad leży bliżej celu. Po przejściu celu na inną komórkę pole wyznaczane jest
+ * przeszukiwaniem wszerz, a po zmianie planszy naprawiane przyrostowo, jak w algorytmie LPA*: każda komórka ma
+ * odległość {@link #g} oraz odległość {@link #rhs} wynikającą z odległości sąsiadów. Zmiana typu komórki zmienia
+ * tylko jej wartość {@link #rhs}, a komórki, w których obie odległości się różnią, przetwarzane są z kopca
+ * ({@link IndexedHeap}) w kolejności odległości - koszt naprawy zależy od liczby komórek, których odległość się
+ * zmieniła, a nie od rozmiaru planszy. Tablice tworzone są raz dla poziomu. Obiekt nie jest bezpieczny
+ * wątkowo - używany jest tylko w wątku rozgrywki
+ */
+public final class DistanceField
+{
+    /**
+     * Odległość komórki nieosiągalnej
+     */
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    /**
+     * Poziom, dla którego planszy wyznaczane jest pole
+     */
+    private final Level level;
+
+    /**
+     * Szerokość planszy w komórkach
+     */
+    private final int width;
+
+    /**
+     * Wysokość planszy w komórkach
+     */
+    private final int height;
+
+    /**
+     * Odległość komórki od celu w krokach, {@link #INFINITY} dla komórek nieosiągalnych
+     */
+    private final int[] g;
+
+    /**
+     * Odległość komórki wynikająca z odległości sąsiadów - o jeden większa od najmniejszej z nich, 0 dla celu
+     * i {@link #INFINITY} dla przeszkód. Komórka, w której różni się od {@link #g}, czeka w kopcu na naprawę
+     */
+    private final int[] rhs;
+
+    /**
+     * Komórki czekające na naprawę, uporządkowane według mniejszej z odległości {@link #g} i {@link #rhs}
+     */
+    private final IndexedHeap inconsistent;
+
+    /**
+     * Kolejka przeszukiwania wszerz przy pierwszym wyznaczeniu pola
+     */
+    private final int[] queue;
+
+    /**
+     * Komórka celu, dla której wyznaczono pole, -1 przed pierwszym wyznaczeniem
+     */
+    private int target = -1;
+
+    /**
+     * Konstruktor, tworzy tablice dla całej planszy poziomu
+     * @param level Poziom, dla którego planszy wyznaczane jest pole
+     */
+    public DistanceField(Level level)
+    {
+        this.level = level;
+        width = level.mapWidth;
+        height = level.mapHeight;
+        int size = width * height;
+        g = new int[size];
+        rhs = new int[size];
+        inconsistent = new IndexedHeap(size);
+        queue = new int[size];
+    }
+
+    /**
+     * Oznacza komórkę, której typ się zmienił, do naprawy przy następnym wywołaniu {@link #update(int, int)}
+     * @param x Składowa x komórki
+     * @param y Składowa y komórki
+     */
+    public void invalidate(int x, int y)
+    {
+        if(target != -1 && contains(x, y))
+            updateRhs(x + y * width);
+    }
+
+    /**
+     * Ustawia komórkę celu i naprawia pole po zmianach planszy. Jeśli cel przeszedł na inną komórkę, pole
+     * wyznaczane jest od nowa - zmienia się wtedy odległość niemal każdej komórki, więc przeszukiwanie wszerz
+     * jest tańsze od naprawy
+     * @param targetX Składowa x komórki celu
+     * @param targetY Składowa y komórki celu
+     */
+    public void update(int targetX, int targetY)
+    {
+        if(!contains(targetX, targetY))
+            return;
+        int node = targetX + targetY * width;
+        if(node != target)
+        {
+            target = node;
+            compute();
+        }
+        else
+            repair();
+    }
+
+    /**
+     * Zwraca odległość komórki od celu
+     * @param x Składowa x komórki
+     * @param y Składowa y komórki
+     * @return Odległość w krokach lub -1, jeśli z komórki nie da się dojść do celu
+     */
+    public int getDistance(int x, int y)
+    {
+        if(target == -1 || !contains(x, y))
+            return -1;
+        int distance = g[x + y * width];
+        return distance < INFINITY ? distance : -1;
+    }
+
+    /**
+     * Zwraca sąsiada komórki leżącego o krok bliżej celu - pierwszy krok najkrótszej ścieżki do celu
+     * @param x Składowa x komórki
+     * @param y Składowa y komórki
+     * @return Numer sąsiedniej komórki ({@code x + y * szerokość}) lub -1, jeśli komórka jest celem
+     * lub nie da się z niej dojść do celu
+     */
+    public int nextStep(int x, int y)
+    {
+        int distance = getDistance(x, y);
+        if(distance <= 0)
+            return -1;
+        int node = x + y * width;
+        if(x < width - 1 && g[node + 1] == distance - 1)
+            return node + 1;
+        if(x > 0 && g[node - 1] == distance - 1)
+            return node - 1;
+        if(y < height - 1 && g[node + width] == distance - 1)
+            return node + width;
+        if(y > 0 && g[node - width] == distance - 1)
+            return node - width;
+        return -1;
+    }
+
+    /**
+     * Wyznacza całe pole przeszukiwaniem wszerz od komórki celu
+     */
+    private void compute()
+    {
+        Arrays.fill(g, INFINITY);
+        inconsistent.clear();
+
+        int head = 0, tail = 0;
+        g[target] = 0;
+        queue[tail++] = target;
+        while(head < tail)
+        {
+            int current = queue[head++];
+            int x = current % width, y = current / width;
+            int distance = g[current] + 1;
+            if(x < width - 1 && reach(current + 1, distance))
+                queue[tail++] = current + 1;
+            if(x > 0 && reach(current - 1, distance))
+                queue[tail++] = current - 1;
+            if(y < height - 1 && reach(current + width, distance))
+                queue[tail++] = current + width;
+            if(y > 0 && reach(current - width, distance))
+                queue[tail++] = current - width;
+        }
+        System.arraycopy(g, 0, rhs, 0, g.length);
+    }
+
+    /**
+     * Zapisuje odległość komórki, jeśli nie jest przeszkodą i nie została jeszcze osiągnięta
+     * @param node Numer komórki
+     * @param distance Odległość komórki od celu
+     * @return {@code true}, jeśli komórka została osiągnięta po raz pierwszy i trzeba dodać ją do kolejki
+     */
+    private boolean reach(int node, int distance)
+    {
+        if(g[node] != INFINITY || isObstacle(node))
+            return false;
+        g[node] = distance;
+        return true;
+    }
+
+    /**
+     * Naprawia pole - przetwarza komórki, w których odległości {@link #g} i {@link #rhs} się różnią, od najbliższej
+     * celu. Komórka, której odległość zmalała, przyjmuje nową odległość. Komórka, której odległość wzrosła, staje
+     * się chwilowo nieosiągalna i wraca do kopca z odległością wyznaczoną przez sąsiadów. W obu przypadkach
+     * sprawdzani są jej sąsiedzi
+     */
+    private void repair()
+    {
+        while(!inconsistent.isEmpty())
+        {
+            int current = inconsistent.pop();
+            if(g[current] > rhs[current])
+                g[current] = rhs[current];
+            else
+            {
+                g[current] = INFINITY;
+                updateRhs(current);
+            }
+
+            int x = current % width, y = current / width;
+            if(x < width - 1)
+                updateRhs(current + 1);
+            if(x > 0)
+                updateRhs(current - 1);
+            if(y < height - 1)
+                updateRhs(current + width);
+            if(y > 0)
+                updateRhs(current - width);
+        }
+    }
+
+    /**
+     * Wyznacza odległość {@link #rhs} komórki na podstawie sąsiadów i umieszcza komórkę w kopcu, jeśli różni się
+     * ona od odległości {@link #g}, lub usuwa ją z kopca w przeciwnym razie
+     * @param node Numer komórki
+     */
+    private void updateRhs(int node)
+    {
+        if(node == target)
+            rhs[node] = 0;
+        else if(isObstacle(node))
+            rhs[node] = INFINITY;
+        else
+        {
+            int x = node % width, y = node / width;
+            int best = INFINITY;
+            if(x < width - 1)
+                best = Math.min(best, g[node + 1]);
+            if(x > 0)
+                best = Math.min(best, g[node - 1]);
+            if(y < height - 1)
+                best = Math.min(best, g[node + width]);
+            if(y > 0)
+                best = Math.min(best, g[node - width]);
+            rhs[node] = best < INFINITY ? best + 1 : INFINITY;
+        }
+
+        if(g[node] != rhs[node])
+            inconsistent.update(node, IndexedHeap.key(Math.min(g[node], rhs[node]), 0));
+        else
+            inconsistent.remove(node);
+    }
+
+    /**
+     * Sprawdza, czy komórka jest przeszkodą
+     * @param node Numer komórki
+     * @return {@code true}, jeśli komórka jest przeszkodą
+     */
+    private boolean isObstacle(int node)
+    {
+        return level.map[node % width][node / width].getTileType().obstacle;
+    }
+
+    /**
+     * Sprawdza, czy komórka leży na planszy
+     * @param x Składowa x komórki
+     * @param y Składowa y komórki
+     * @return {@code true}, jeśli komórka leży na planszy
+     */
+    private boolean contains(int x, int y)
+    {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+}
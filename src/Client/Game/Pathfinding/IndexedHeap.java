@@ -0,0 +1,196 @@
+package Client.Game.Pathfinding;
+
+/**
+ * Kopiec binarny (minimum) numerów komórek planszy, z kluczem przypisanym do każdej komórki. Pamięta pozycję
+ * każdej komórki w kopcu, więc zmiana klucza i sprawdzenie przynależności nie wymagają przeszukiwania.
+ * Wszystkie tablice tworzone są w konstruktorze, a opróżnienie kopca nie wymaga ich czyszczenia
+ */
+final class IndexedHeap
+{
+    /**
+     * Numery komórek w porządku kopca
+     */
+    private final int[] nodes;
+
+    /**
+     * Pozycje komórek w tablicy {@link #nodes}, indeksowane numerem komórki. Wartość jest aktualna tylko wtedy,
+     * gdy wskazuje na pozycję w kopcu, pod którą znajduje się ta sama komórka
+     */
+    private final int[] positions;
+
+    /**
+     * Klucze komórek, indeksowane numerem komórki
+     */
+    private final long[] keys;
+
+    /**
+     * Liczba komórek w kopcu
+     */
+    private int size;
+
+    /**
+     * Konstruktor, tworzy tablice
+     * @param capacity Liczba komórek planszy
+     */
+    IndexedHeap(int capacity)
+    {
+        nodes = new int[capacity];
+        positions = new int[capacity];
+        keys = new long[capacity];
+    }
+
+    /**
+     * Łączy dwie nieujemne wartości w jeden klucz, porównywany najpierw pierwszą, a przy równości drugą wartością
+     * @param primary Pierwsza wartość
+     * @param secondary Druga wartość
+     * @return Klucz
+     */
+    static long key(int primary, int secondary)
+    {
+        return ((long)primary << 32) | (secondary & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Opróżnia kopiec
+     */
+    void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Sprawdza, czy kopiec jest pusty
+     * @return {@code true}, jeśli kopiec jest pusty
+     */
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Sprawdza, czy komórka znajduje się w kopcu
+     * @param node Numer komórki
+     * @return {@code true}, jeśli komórka znajduje się w kopcu
+     */
+    boolean contains(int node)
+    {
+        int position = positions[node];
+        return position < size && nodes[position] == node;
+    }
+
+    /**
+     * Dodaje komórkę do kopca lub zmienia jej klucz, jeśli już się w nim znajduje
+     * @param node Numer komórki
+     * @param key Klucz komórki
+     */
+    void update(int node, long key)
+    {
+        if(!contains(node))
+        {
+            nodes[size] = node;
+            positions[node] = size;
+            keys[node] = key;
+            siftUp(size++);
+            return;
+        }
+
+        long previous = keys[node];
+        keys[node] = key;
+        if(key < previous)
+            siftUp(positions[node]);
+        else
+            siftDown(positions[node]);
+    }
+
+    /**
+     * Usuwa komórkę z kopca, jeśli się w nim znajduje
+     * @param node Numer komórki
+     */
+    void remove(int node)
+    {
+        if(!contains(node))
+            return;
+        int position = positions[node];
+        int last = nodes[--size];
+        if(position == size)
+            return;
+        nodes[position] = last;
+        positions[last] = position;
+        siftDown(position);
+        siftUp(positions[last]);
+    }
+
+    /**
+     * Zwraca klucz komórki na szczycie kopca
+     * @return Najmniejszy klucz w kopcu
+     */
+    long peekKey()
+    {
+        return keys[nodes[0]];
+    }
+
+    /**
+     * Usuwa i zwraca komórkę o najmniejszym kluczu
+     * @return Numer komórki
+     */
+    int pop()
+    {
+        int top = nodes[0];
+        int last = nodes[--size];
+        if(size > 0)
+        {
+            nodes[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Przesuwa komórkę w górę kopca, dopóki jej klucz jest mniejszy od klucza rodzica
+     * @param position Pozycja komórki w kopcu
+     */
+    private void siftUp(int position)
+    {
+        int node = nodes[position];
+        long key = keys[node];
+        while(position > 0)
+        {
+            int parent = (position - 1) >>> 1;
+            int parentNode = nodes[parent];
+            if(keys[parentNode] <= key)
+                break;
+            nodes[position] = parentNode;
+            positions[parentNode] = position;
+            position = parent;
+        }
+        nodes[position] = node;
+        positions[node] = position;
+    }
+
+    /**
+     * Przesuwa komórkę w dół kopca, dopóki klucz któregoś z dzieci jest mniejszy od jej klucza
+     * @param position Pozycja komórki w kopcu
+     */
+    private void siftDown(int position)
+    {
+        int node = nodes[position];
+        long key = keys[node];
+        while(true)
+        {
+            int child = 2 * position + 1;
+            if(child >= size)
+                break;
+            if(child + 1 < size && keys[nodes[child + 1]] < keys[nodes[child]])
+                child++;
+            int childNode = nodes[child];
+            if(keys[childNode] >= key)
+                break;
+            nodes[position] = childNode;
+            positions[childNode] = position;
+            position = child;
+        }
+        nodes[position] = node;
+        positions[node] = position;
+    }
+}
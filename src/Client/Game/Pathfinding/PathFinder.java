@@ -0,0 +1,253 @@
+package Client.Game.Pathfinding;
+
+import Client.Game.Managers.Level;
+
+import java.util.Arrays;
+
+/**
+ * Wyszukiwanie ścieżek po planszy poziomu algorytmem A*. Komórki numerowane są liczbami {@code x + y * szerokość},
+ * zbiór otwarty jest kopcem ({@link IndexedHeap}), a koszty i poprzednicy komórek przechowywani są w tablicach
+ * liczb całkowitych. Tablice tworzone są raz dla poziomu - zamiast je czyścić, każde wyszukiwanie ma własny
+ * numer, a dane komórki są ważne tylko wtedy, gdy zapisano przy niej numer bieżącego wyszukiwania. Dzięki temu
+ * wyszukiwanie nie tworzy nowych obiektów, a jego koszt zależy od liczby odwiedzonych komórek, nie od rozmiaru
+ * planszy. Obiekt nie jest bezpieczny wątkowo - używany jest tylko w wątku rozgrywki
+ */
+public final class PathFinder
+{
+    /**
+     * Poziom, po którego planszy wyszukiwane są ścieżki
+     */
+    private final Level level;
+
+    /**
+     * Szerokość planszy w komórkach
+     */
+    private final int width;
+
+    /**
+     * Wysokość planszy w komórkach
+     */
+    private final int height;
+
+    /**
+     * Zbiór otwarty - komórki do sprawdzenia, uporządkowane według przewidywanego kosztu całej ścieżki
+     */
+    private final IndexedHeap open;
+
+    /**
+     * Koszt dotarcia do komórki od początku ścieżki
+     */
+    private final int[] g;
+
+    /**
+     * Poprzednik komórki na ścieżce, -1 dla komórki początkowej
+     */
+    private final int[] previous;
+
+    /**
+     * Numer wyszukiwania, w którym komórka została odwiedzona - dane komórki są ważne tylko dla bieżącego numeru
+     */
+    private final int[] visited;
+
+    /**
+     * Numer wyszukiwania, w którym komórka została sprawdzona - trafiła do zbioru zamkniętego
+     */
+    private final int[] closed;
+
+    /**
+     * Numer bieżącego wyszukiwania
+     */
+    private int generation;
+
+    /**
+     * Konstruktor, tworzy tablice dla całej planszy poziomu
+     * @param level Poziom, po którego planszy wyszukiwane są ścieżki
+     */
+    public PathFinder(Level level)
+    {
+        this.level = level;
+        width = level.mapWidth;
+        height = level.mapHeight;
+        int size = width * height;
+        open = new IndexedHeap(size);
+        g = new int[size];
+        previous = new int[size];
+        visited = new int[size];
+        closed = new int[size];
+    }
+
+    /**
+     * Wyszukuje najkrótszą ścieżkę między komórkami i zwraca jej pierwszy krok. Jeśli ścieżka do celu nie istnieje,
+     * wybierana jest ścieżka do sprawdzonej komórki położonej najbliżej celu w linii prostej
+     * @param startX Składowa x komórki początkowej
+     * @param startY Składowa y komórki początkowej
+     * @param goalX Składowa x komórki docelowej
+     * @param goalY Składowa y komórki docelowej
+     * @return Numer komórki będącej pierwszym krokiem ścieżki lub -1, jeśli nie trzeba lub nie da się wykonać kroku
+     */
+    public int findFirstStep(int startX, int startY, int goalX, int goalY)
+    {
+        if(!contains(startX, startY) || !contains(goalX, goalY))
+            return -1;
+        nextGeneration();
+
+        int start = node(startX, startY), goal = node(goalX, goalY);
+        int bestOfWorst = start;
+        int bestDistance = squaredDistance(start, goal);
+
+        visited[start] = generation;
+        g[start] = 0;
+        previous[start] = -1;
+        open.update(start, IndexedHeap.key(heuristic(start, goal), heuristic(start, goal)));
+
+        int destination = -1;
+        while(!open.isEmpty())
+        {
+            int current = open.pop();
+            closed[current] = generation;
+
+            int distance = squaredDistance(current, goal);
+            if(distance < bestDistance)
+            {
+                bestDistance = distance;
+                bestOfWorst = current;
+            }
+            if(current == goal)
+            {
+                destination = goal;
+                break;
+            }
+
+            int x = getX(current), y = getY(current);
+            if(x < width - 1)
+                relax(current, current + 1, goal);
+            if(x > 0)
+                relax(current, current - 1, goal);
+            if(y < height - 1)
+                relax(current, current + width, goal);
+            if(y > 0)
+                relax(current, current - width, goal);
+        }
+        if(destination == -1)
+            destination = bestOfWorst;
+
+        //cofamy się po ścieżce od końca do komórki następującej po początkowej
+        if(destination == start)
+            return -1;
+        while(previous[destination] != start)
+            destination = previous[destination];
+        return destination;
+    }
+
+    /**
+     * Sprawdza, czy przejście do sąsiada daje krótszą ścieżkę niż dotychczas znana - jeśli tak, zapisuje ją
+     * i umieszcza sąsiada w zbiorze otwartym
+     * @param current Numer obecnej komórki
+     * @param neighbor Numer sąsiedniej komórki
+     * @param goal Numer komórki docelowej
+     */
+    private void relax(int current, int neighbor, int goal)
+    {
+        if(closed[neighbor] == generation || isObstacle(neighbor))
+            return;
+        int tentativeG = g[current] + 1;
+        if(visited[neighbor] == generation && tentativeG >= g[neighbor])
+            return;
+
+        visited[neighbor] = generation;
+        g[neighbor] = tentativeG;
+        previous[neighbor] = current;
+        int h = heuristic(neighbor, goal);
+        open.update(neighbor, IndexedHeap.key(tentativeG + h, h));
+    }
+
+    /**
+     * Rozpoczyna nowe wyszukiwanie - zwiększa jego numer, a po przepełnieniu licznika czyści znaczniki komórek
+     */
+    private void nextGeneration()
+    {
+        open.clear();
+        if(++generation == Integer.MAX_VALUE)
+        {
+            Arrays.fill(visited, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Przewiduje koszt dojścia z komórki do celu - odległość w metryce miejskiej, bo poruszać się
+     * można tylko w czterech kierunkach
+     * @param node Numer komórki
+     * @param goal Numer komórki docelowej
+     * @return Przewidywany koszt
+     */
+    private int heuristic(int node, int goal)
+    {
+        return Math.abs(getX(node) - getX(goal)) + Math.abs(getY(node) - getY(goal));
+    }
+
+    /**
+     * Zwraca kwadrat odległości między komórkami w linii prostej
+     * @param node Numer pierwszej komórki
+     * @param goal Numer drugiej komórki
+     * @return Kwadrat odległości
+     */
+    private int squaredDistance(int node, int goal)
+    {
+        int dx = getX(node) - getX(goal), dy = getY(node) - getY(goal);
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Sprawdza, czy komórka jest przeszkodą
+     * @param node Numer komórki
+     * @return {@code true}, jeśli komórka jest przeszkodą
+     */
+    private boolean isObstacle(int node)
+    {
+        return level.map[getX(node)][getY(node)].getTileType().obstacle;
+    }
+
+    /**
+     * Sprawdza, czy komórka leży na planszy
+     * @param x Składowa x komórki
+     * @param y Składowa y komórki
+     * @return {@code true}, jeśli komórka leży na planszy
+     */
+    private boolean contains(int x, int y)
+    {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Zwraca numer komórki
+     * @param x Składowa x komórki
+     * @param y Składowa y komórki
+     * @return Numer komórki
+     */
+    private int node(int x, int y)
+    {
+        return x + y * width;
+    }
+
+    /**
+     * Zwraca składową x komórki
+     * @param node Numer komórki
+     * @return Składowa x komórki
+     */
+    public int getX(int node)
+    {
+        return node % width;
+    }
+
+    /**
+     * Zwraca składową y komórki
+     * @param node Numer komórki
+     * @return Składowa y komórki
+     */
+    public int getY(int node)
+    {
+        return node / width;
+    }
+}
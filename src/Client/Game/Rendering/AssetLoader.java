@@ -0,0 +1,136 @@
+package Client.Game.Rendering;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Klasa wczytująca obrazki gry. Pliki dekodowane są przez {@link ImageIO} równolegle - wywołana z wątku puli
+ * {@link java.util.concurrent.ForkJoinPool} dzieli pracę w tej puli - a następnie skalowane interpolacją
+ * dwuliniową, przy dużym zmniejszeniu w kilku krokach o połowę, do obrazów w formacie ekranu. Przeskalowane
+ * obrazki zapisywane są w {@link ImageCache}, więc kolejne uruchomienia pomijają dekodowanie i skalowanie.
+ * Zapamiętuje czas wczytania każdego pliku
+ */
+public final class AssetLoader
+{
+    /**
+     * Czasy wczytania plików w nanosekundach, kluczem jest ścieżka pliku
+     */
+    private static final Map<String, Long> loadTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Liczba obrazków wczytanych z pamięci podręcznej {@link ImageCache}, bez dekodowania i skalowania
+     */
+    private static final AtomicInteger cacheHits = new AtomicInteger();
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private AssetLoader() {}
+
+    /**
+     * Wczytuje równolegle obrazki i skaluje je do jednego rozmiaru
+     * @param paths Ścieżki plików
+     * @param width Żądana szerokość
+     * @param height Żądana wysokość
+     * @return Obrazki w kolejności ścieżek
+     * @throws IOException Występuje, gdy któregoś pliku nie udało się odczytać
+     */
+    public static BufferedImage[] loadImages(String[] paths, int width, int height) throws IOException
+    {
+        BufferedImage[] images = new BufferedImage[paths.length];
+        try {
+            IntStream.range(0, paths.length).parallel().forEach(i -> {
+                try {
+                    images[i] = loadImage(paths[i], width, height);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return images;
+    }
+
+    /**
+     * Wczytuje obrazek przeskalowany do podanego rozmiaru - z pamięci podręcznej {@link ImageCache}, a jeśli go
+     * tam nie ma, dekoduje i skaluje plik, zapisując wynik do pamięci podręcznej
+     * @param path Ścieżka pliku
+     * @param width Żądana szerokość
+     * @param height Żądana wysokość
+     * @return Przeskalowany obrazek w formacie ekranu
+     * @throws IOException Występuje, gdy pliku nie udało się odczytać lub jego format nie jest obsługiwany
+     */
+    public static BufferedImage loadImage(String path, int width, int height) throws IOException
+    {
+        long startTime = System.nanoTime();
+        byte[] bytes = Files.readAllBytes(Paths.get(path));
+        BufferedImage scaled = ImageCache.load(path, bytes, width, height);
+        if(scaled != null)
+            cacheHits.incrementAndGet();
+        else
+        {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(bytes));
+            if(source == null)
+                throw new IOException("Nieobslugiwany format pliku " + path);
+            scaled = scale(source, width, height);
+            ImageCache.store(path, bytes, scaled);
+        }
+        loadTimes.put(path, System.nanoTime() - startTime);
+        return scaled;
+    }
+
+    /**
+     * Skaluje obrazek interpolacją dwuliniową. Przy zmniejszaniu więcej niż o połowę obrazek zmniejszany jest
+     * kolejno o połowę, aż do żądanego rozmiaru - jeden krok interpolacji dwuliniowej pomijałby część pikseli
+     * @param source Obrazek oryginalny
+     * @param width Żądana szerokość
+     * @param height Żądana wysokość
+     * @return Przeskalowany obrazek w formacie ekranu
+     */
+    public static BufferedImage scale(BufferedImage source, int width, int height)
+    {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth(), currentHeight = source.getHeight();
+        do
+        {
+            currentWidth = currentWidth / 2 >= width ? currentWidth / 2 : width;
+            currentHeight = currentHeight / 2 >= height ? currentHeight / 2 : height;
+
+            BufferedImage step = SpriteCache.createImage(currentWidth, currentHeight, Transparency.TRANSLUCENT);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = step;
+        } while(currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    /**
+     * Zwraca czasy wczytania plików
+     * @return Mapa ścieżka pliku - czas wczytania w nanosekundach
+     */
+    public static Map<String, Long> getLoadTimes() {
+        return loadTimes;
+    }
+
+    /**
+     * Zwraca liczbę obrazków wczytanych z pamięci podręcznej
+     * @return Liczba obrazków
+     */
+    public static int getCacheHits() {
+        return cacheHits.get();
+    }
+}
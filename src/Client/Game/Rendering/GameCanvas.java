@@ -0,0 +1,119 @@
+package Client.Game.Rendering;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Płótno rysowane aktywnie z wątku gry. Klatka rysowana jest do bufora w tle i wyświetlana przez przełączenie
+ * buforów ({@link BufferStrategy}), więc nie trafia do kolejki zdarzeń Swinga i nie jest łączona z innymi
+ * klatkami ani wyświetlana w połowie rysowania. Płótno mierzy czas rysowania kolejnych klatek
+ */
+public class GameCanvas extends Canvas
+{
+    /**
+     * Interfejs obiektu rysującego zawartość klatki
+     */
+    public interface Painter
+    {
+        /**
+         * Rysuje klatkę
+         * @param g Obiekt, na którym rysowana jest klatka
+         * @param width Szerokość płótna
+         * @param height Wysokość płótna
+         */
+        void paint(Graphics2D g, int width, int height);
+    }
+
+    /**
+     * Liczba buforów - bufor wyświetlany i jeden bufor w tle
+     */
+    private static final int BUFFER_COUNT = 2;
+
+    /**
+     * Waga ostatniej klatki w średniej kroczącej czasu rysowania
+     */
+    private static final double AVERAGE_WEIGHT = 0.1;
+
+    /**
+     * Strategia buforowania, tworzona przy pierwszej klatce rysowanej na wyświetlanym płótnie
+     */
+    private BufferStrategy bufferStrategy;
+
+    /**
+     * Czas rysowania ostatniej klatki w nanosekundach, łącznie z wyświetleniem
+     */
+    private volatile long lastFrameTime;
+
+    /**
+     * Średnia krocząca czasu rysowania klatki w nanosekundach
+     */
+    private volatile double averageFrameTime;
+
+    /**
+     * Konstruktor, ustala rozmiar płótna. Płótno ignoruje zdarzenia odświeżania i nie przejmuje klawiatury,
+     * która obsługiwana jest przez okno gry
+     * @param width Szerokość płótna
+     * @param height Wysokość płótna
+     */
+    public GameCanvas(int width, int height)
+    {
+        setPreferredSize(new Dimension(width, height));
+        setIgnoreRepaint(true);
+        setFocusable(false);
+    }
+
+    /**
+     * Rysuje i wyświetla klatkę. Jeśli zawartość bufora zostanie utracona w trakcie, klatka rysowana jest ponownie
+     * @param painter Obiekt rysujący zawartość klatki
+     * @return {@code true}, jeśli klatka została wyświetlona, {@code false} jeśli płótno nie jest jeszcze wyświetlane
+     */
+    public boolean render(Painter painter)
+    {
+        int width = getWidth(), height = getHeight();
+        if(!isDisplayable() || width <= 0 || height <= 0)
+            return false;
+        if(bufferStrategy == null) {
+            createBufferStrategy(BUFFER_COUNT);
+            bufferStrategy = getBufferStrategy();
+        }
+
+        long startTime = System.nanoTime();
+        do
+        {
+            do
+            {
+                Graphics2D g = (Graphics2D)bufferStrategy.getDrawGraphics();
+                try {
+                    g.setColor(getBackground());
+                    g.fillRect(0, 0, width, height);
+                    painter.paint(g, width, height);
+                } finally {
+                    g.dispose();
+                }
+            } while(bufferStrategy.contentsRestored());
+            bufferStrategy.show();
+        } while(bufferStrategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+
+        long frameTime = System.nanoTime() - startTime;
+        lastFrameTime = frameTime;
+        averageFrameTime = averageFrameTime == 0 ? frameTime : averageFrameTime + (frameTime - averageFrameTime) * AVERAGE_WEIGHT;
+        return true;
+    }
+
+    /**
+     * Getter zmiennej {@link #lastFrameTime}
+     * @return Zmienna {@link #lastFrameTime}
+     */
+    public long getLastFrameTime() {
+        return lastFrameTime;
+    }
+
+    /**
+     * Getter zmiennej {@link #averageFrameTime}
+     * @return Zmienna {@link #averageFrameTime}
+     */
+    public double getAverageFrameTime() {
+        return averageFrameTime;
+    }
+}
@@ -0,0 +1,176 @@
+package Client.Game.Rendering;
+
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Klasa dekodująca animowane pliki GIF do sekwencji obrazków. Klatki składane są z uwzględnieniem ich położenia
+ * i sposobu usuwania, układane na jednym atlasie ({@link SpriteAtlas}), a następnie powtarzane zgodnie z czasem
+ * wyświetlania, tak by każdy element sekwencji trwał jedną klatkę rozgrywki
+ */
+public final class GifLoader
+{
+    /**
+     * Domyślny czas wyświetlania klatki w setnych sekundy, gdy plik go nie podaje
+     */
+    private static final int DEFAULT_DELAY = 10;
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private GifLoader() {}
+
+    /**
+     * Wczytuje animację z pliku GIF
+     * @param path Ścieżka pliku
+     * @param tickMillis Czas trwania jednej klatki rozgrywki w milisekundach
+     * @return Sekwencja obrazków - jeden element na klatkę rozgrywki
+     * @throws IOException Występuje, gdy pliku nie udało się odczytać
+     */
+    public static Sprite[] load(String path, int tickMillis) throws IOException
+    {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+        if(!readers.hasNext())
+            throw new IOException("Brak obslugi formatu GIF");
+        ImageReader reader = readers.next();
+
+        ArrayList<BufferedImage> frames = new ArrayList<>();
+        ArrayList<Integer> delays = new ArrayList<>();
+        try (ImageInputStream in = ImageIO.createImageInputStream(new File(path)))
+        {
+            if(in == null)
+                throw new IOException("Nie udalo sie otworzyc pliku " + path);
+            reader.setInput(in, false);
+
+            BufferedImage canvas = null;
+            int frameCount = reader.getNumImages(true);
+            for(int i = 0; i < frameCount; i++)
+            {
+                BufferedImage frame = reader.read(i);
+                Node root = reader.getImageMetadata(i).getAsTree("javax_imageio_gif_image_1.0");
+                Node descriptor = child(root, "ImageDescriptor");
+                Node control = child(root, "GraphicControlExtension");
+                int left = intAttribute(descriptor, "imageLeftPosition", 0);
+                int top = intAttribute(descriptor, "imageTopPosition", 0);
+                String disposal = control == null ? "none" : attribute(control, "disposalMethod", "none");
+                int delay = control == null ? 0 : intAttribute(control, "delayTime", 0);
+
+                if(canvas == null)
+                    canvas = createCanvas(reader.getStreamMetadata(), frame.getWidth() + left, frame.getHeight() + top);
+                BufferedImage previous = disposal.equals("restoreToPrevious") ? copy(canvas) : null;
+
+                Graphics2D g = canvas.createGraphics();
+                g.drawImage(frame, left, top, null);
+                g.dispose();
+                frames.add(copy(canvas));
+                delays.add(delay > 0 ? delay : DEFAULT_DELAY);
+
+                if(disposal.equals("restoreToBackgroundColor")) {
+                    g = canvas.createGraphics();
+                    g.setComposite(AlphaComposite.Clear);
+                    g.fillRect(left, top, frame.getWidth(), frame.getHeight());
+                    g.dispose();
+                }
+                else if(previous != null)
+                    canvas = previous;
+            }
+        } finally {
+            reader.dispose();
+        }
+
+        Sprite[] packed = SpriteAtlas.pack(frames.toArray(new BufferedImage[0]));
+        ArrayList<Sprite> sequence = new ArrayList<>();
+        for(int i = 0; i < packed.length; i++)
+        {
+            int ticks = Math.max(1, Math.round(delays.get(i) * 10f / tickMillis));
+            for(int j = 0; j < ticks; j++)
+                sequence.add(packed[i]);
+        }
+        return sequence.toArray(new Sprite[0]);
+    }
+
+    /**
+     * Tworzy przezroczyste płótno o rozmiarze ekranu logicznego animacji
+     * @param streamMetadata Metadane pliku
+     * @param fallbackWidth Szerokość, gdy metadane jej nie podają
+     * @param fallbackHeight Wysokość, gdy metadane jej nie podają
+     * @return Płótno
+     */
+    private static BufferedImage createCanvas(IIOMetadata streamMetadata, int fallbackWidth, int fallbackHeight)
+    {
+        int width = fallbackWidth, height = fallbackHeight;
+        if(streamMetadata != null) {
+            Node screen = child(streamMetadata.getAsTree("javax_imageio_gif_stream_1.0"), "LogicalScreenDescriptor");
+            width = Math.max(width, intAttribute(screen, "logicalScreenWidth", 0));
+            height = Math.max(height, intAttribute(screen, "logicalScreenHeight", 0));
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Kopiuje obraz
+     * @param image Obraz
+     * @return Kopia obrazu
+     */
+    private static BufferedImage copy(BufferedImage image)
+    {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = copy.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return copy;
+    }
+
+    /**
+     * Zwraca węzeł potomny o podanej nazwie
+     * @param parent Węzeł nadrzędny
+     * @param name Nazwa węzła
+     * @return Węzeł lub {@code null}, jeśli go nie ma
+     */
+    private static Node child(Node parent, String name)
+    {
+        for(Node node = parent.getFirstChild(); node != null; node = node.getNextSibling())
+            if(node.getNodeName().equals(name))
+                return node;
+        return null;
+    }
+
+    /**
+     * Zwraca wartość atrybutu węzła
+     * @param node Węzeł lub {@code null}
+     * @param name Nazwa atrybutu
+     * @param fallback Wartość zwracana, gdy atrybutu nie ma
+     * @return Wartość atrybutu
+     */
+    private static String attribute(Node node, String name, String fallback)
+    {
+        Node attribute = node == null ? null : node.getAttributes().getNamedItem(name);
+        return attribute == null ? fallback : attribute.getNodeValue();
+    }
+
+    /**
+     * Zwraca liczbową wartość atrybutu węzła
+     * @param node Węzeł lub {@code null}
+     * @param name Nazwa atrybutu
+     * @param fallback Wartość zwracana, gdy atrybutu nie ma lub nie jest liczbą
+     * @return Wartość atrybutu
+     */
+    private static int intAttribute(Node node, String name, int fallback)
+    {
+        try {
+            return Integer.parseInt(attribute(node, name, String.valueOf(fallback)));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
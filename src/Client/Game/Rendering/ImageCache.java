@@ -0,0 +1,185 @@
+package Client.Game.Rendering;
+
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Klasa przechowująca na dysku obrazki przeskalowane przez {@link AssetLoader}, w postaci surowych pikseli ARGB.
+ * Nazwa pliku zawiera ścieżkę i sumę kontrolną CRC32 pliku źródłowego oraz rozmiar docelowy, więc zmiana obrazka
+ * lub proporcji we właściwościach klasy prowadzi do nowego pliku - poprzednie kopie tego samego pliku źródłowego
+ * usuwane są przy zapisie. Plik zawiera znacznik formatu, szerokość, wysokość i piksele wierszami. Przy kolejnym
+ * uruchomieniu plik jest mapowany do pamięci i kopiowany do obrazka w formacie ekranu bez dekodowania i skalowania
+ */
+final class ImageCache
+{
+    /**
+     * Katalog z przeskalowanymi obrazkami
+     */
+    private static final Path CACHE_DIRECTORY = Paths.get("./data/cache/img");
+
+    /**
+     * Znacznik formatu pliku - zmieniany przy zmianie formatu lub sposobu skalowania, by pominąć stare pliki
+     */
+    private static final int MAGIC = 0x41524701;
+
+    /**
+     * Rozmiar nagłówka pliku w bajtach - znacznik, szerokość i wysokość
+     */
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    /**
+     * Wiek (w milisekundach), po którym plik tymczasowy uznawany jest za pozostałość po przerwanym zapisie
+     */
+    private static final long TEMPORARY_FILE_AGE = 60_000L;
+
+    /**
+     * Mówi, czy pliki tymczasowe pozostałe po przerwanych zapisach zostały już usunięte - dzieje się to przy
+     * pierwszym zapisie po uruchomieniu
+     */
+    private static final AtomicBoolean temporaryFilesRemoved = new AtomicBoolean();
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private ImageCache() {}
+
+    /**
+     * Wczytuje przeskalowany obrazek, o ile został wcześniej zapisany
+     * @param path Ścieżka pliku źródłowego
+     * @param source Zawartość pliku źródłowego
+     * @param width Żądana szerokość
+     * @param height Żądana wysokość
+     * @return Obrazek lub {@code null}, jeśli brak poprawnej kopii
+     */
+    static BufferedImage load(String path, byte[] source, int width, int height)
+    {
+        Path file = fileFor(path, source, width, height);
+        if(!Files.isRegularFile(file))
+            return null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if(channel.size() != HEADER_SIZE + (long)width * height * Integer.BYTES)
+                return null;
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            IntBuffer data = mapped.asIntBuffer();
+            if(data.get() != MAGIC || data.get() != width || data.get() != height)
+                return null;
+
+            int[] pixels = new int[width * height];
+            data.get(pixels);
+            BufferedImage image = SpriteCache.createImage(width, height, Transparency.TRANSLUCENT);
+            image.setRGB(0, 0, width, height, pixels, 0, width);
+            return image;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Zapisuje przeskalowany obrazek. Dane trafiają najpierw do pliku tymczasowego, który następnie
+     * zastępuje poprzednią kopię, więc przerwany zapis nie psuje pamięci podręcznej. Kopie tego samego pliku
+     * źródłowego o innej sumie kontrolnej lub rozmiarze są usuwane
+     * @param path Ścieżka pliku źródłowego
+     * @param source Zawartość pliku źródłowego
+     * @param image Przeskalowany obrazek
+     */
+    static void store(String path, byte[] source, BufferedImage image)
+    {
+        int width = image.getWidth(), height = image.getHeight();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + width * height * Integer.BYTES);
+        buffer.putInt(MAGIC).putInt(width).putInt(height);
+        buffer.asIntBuffer().put(image.getRGB(0, 0, width, height, null, 0, width));
+        buffer.rewind();
+
+        try {
+            Files.createDirectories(CACHE_DIRECTORY);
+            if(temporaryFilesRemoved.compareAndSet(false, true))
+                removeTemporaryFiles();
+            Path temporaryFile = Files.createTempFile(CACHE_DIRECTORY, "img", ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                while(buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            Path file = fileFor(path, source, width, height);
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            removeStaleCopies(path, file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Usuwa kopie pliku źródłowego inne niż bieżąca - pozostałe po zmianie obrazka lub rozmiaru docelowego
+     * @param path Ścieżka pliku źródłowego
+     * @param current Bieżąca kopia, która zostaje zachowana
+     * @throws IOException Występuje, gdy nie udało się odczytać katalogu
+     */
+    private static void removeStaleCopies(String path, Path current) throws IOException
+    {
+        Pattern copy = Pattern.compile(Pattern.quote(nameFor(path)) + "-[0-9a-f]+-\\d+x\\d+\\.argb");
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(CACHE_DIRECTORY,
+                entry -> copy.matcher(entry.getFileName().toString()).matches() && !entry.equals(current)))
+        {
+            for(Path file : files)
+                Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Usuwa pliki tymczasowe pozostałe po przerwanych zapisach. Pomija pliki świeże, które może właśnie
+     * zapisywać inna uruchomiona kopia gry
+     */
+    private static void removeTemporaryFiles()
+    {
+        long threshold = System.currentTimeMillis() - TEMPORARY_FILE_AGE;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(CACHE_DIRECTORY, "img*.tmp"))
+        {
+            for(Path file : files)
+                if(Files.getLastModifiedTime(file).toMillis() < threshold)
+                    Files.deleteIfExists(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Wyznacza plik, w którym przechowywany jest przeskalowany obrazek
+     * @param path Ścieżka pliku źródłowego
+     * @param source Zawartość pliku źródłowego
+     * @param width Szerokość docelowa
+     * @param height Wysokość docelowa
+     * @return Ścieżka pliku w katalogu {@link #CACHE_DIRECTORY}
+     */
+    private static Path fileFor(String path, byte[] source, int width, int height)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(source);
+        return CACHE_DIRECTORY.resolve(nameFor(path) + "-" + Long.toHexString(crc.getValue()) + "-" + width + "x" + height + ".argb");
+    }
+
+    /**
+     * Wyznacza początek nazwy kopii pliku źródłowego - jego ścieżkę ze znakami spoza nazw plików zastąpionymi
+     * podkreśleniem. Pełna ścieżka odróżnia pliki o tej samej nazwie z różnych katalogów
+     * @param path Ścieżka pliku źródłowego
+     * @return Początek nazwy kopii
+     */
+    private static String nameFor(String path)
+    {
+        return Paths.get(path).normalize().toString().replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+}
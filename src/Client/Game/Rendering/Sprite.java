@@ -0,0 +1,92 @@
+package Client.Game.Rendering;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Klasa reprezentująca obrazek animacji - prostokąt wycięty z atlasu {@link SpriteAtlas}, wspólnego dla całej
+ * rodziny obrazków (np. wszystkich klatek gracza)
+ */
+public final class Sprite
+{
+    /**
+     * Atlas, na którym znajduje się obrazek
+     */
+    private final BufferedImage atlas;
+
+    /**
+     * Składowa x lewego górnego rogu obrazka na atlasie
+     */
+    private final int x;
+
+    /**
+     * Składowa y lewego górnego rogu obrazka na atlasie
+     */
+    private final int y;
+
+    /**
+     * Szerokość obrazka
+     */
+    private final int width;
+
+    /**
+     * Wysokość obrazka
+     */
+    private final int height;
+
+    /**
+     * Konstruktor, przypisuje wartości zmiennym
+     * @param atlas Atlas, na którym znajduje się obrazek
+     * @param x Składowa x lewego górnego rogu obrazka na atlasie
+     * @param y Składowa y lewego górnego rogu obrazka na atlasie
+     * @param width Szerokość obrazka
+     * @param height Wysokość obrazka
+     */
+    Sprite(BufferedImage atlas, int x, int y, int width, int height)
+    {
+        this.atlas = atlas;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Getter zmiennej {@link #atlas}
+     * @return Zmienna {@link #atlas}
+     */
+    BufferedImage getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * Getter zmiennej {@link #x}
+     * @return Zmienna {@link #x}
+     */
+    int getX() {
+        return x;
+    }
+
+    /**
+     * Getter zmiennej {@link #y}
+     * @return Zmienna {@link #y}
+     */
+    int getY() {
+        return y;
+    }
+
+    /**
+     * Getter zmiennej {@link #width}
+     * @return Zmienna {@link #width}
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Getter zmiennej {@link #height}
+     * @return Zmienna {@link #height}
+     */
+    public int getHeight() {
+        return height;
+    }
+}
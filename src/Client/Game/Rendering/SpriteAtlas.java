@@ -0,0 +1,69 @@
+package Client.Game.Rendering;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Klasa układająca obrazki jednej rodziny (np. wszystkie klatki animacji przeciwnika) na jednym obrazie - atlasie.
+ * Zamiast kilkudziesięciu osobnych obrazków Java2D przechowuje jedną powierzchnię na rodzinę, a klatki
+ * rysowane są jako jej prostokątne fragmenty ({@link Sprite})
+ */
+public final class SpriteAtlas
+{
+    /**
+     * Przezroczysty odstęp między obrazkami na atlasie, w pikselach. Przy skalowaniu całego atlasu piksele
+     * sąsiednich obrazków nie wchodzą dzięki niemu w rysowany fragment
+     */
+    private static final int PADDING = 2;
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private SpriteAtlas() {}
+
+    /**
+     * Układa obrazki na nowym atlasie półkami - wierszami o wysokości najwyższego obrazka w wierszu. Szerokość atlasu
+     * dobierana jest tak, by był zbliżony do kwadratu
+     * @param images Obrazki rodziny, w pełni wczytane
+     * @return Fragmenty atlasu w kolejności podanych obrazków
+     */
+    public static Sprite[] pack(Image[] images)
+    {
+        long area = 0;
+        int maxWidth = 1;
+        for(Image image : images) {
+            area += (long)(image.getWidth(null) + PADDING) * (image.getHeight(null) + PADDING);
+            maxWidth = Math.max(maxWidth, image.getWidth(null) + PADDING);
+        }
+        int atlasWidth = Math.max(maxWidth, (int)Math.ceil(Math.sqrt(area)));
+
+        int[] xs = new int[images.length];
+        int[] ys = new int[images.length];
+        int x = 0, y = 0, shelfHeight = 0;
+        for(int i = 0; i < images.length; i++)
+        {
+            int width = images[i].getWidth(null) + PADDING;
+            int height = images[i].getHeight(null) + PADDING;
+            if(x + width > atlasWidth) {
+                x = 0;
+                y += shelfHeight;
+                shelfHeight = 0;
+            }
+            xs[i] = x;
+            ys[i] = y;
+            x += width;
+            shelfHeight = Math.max(shelfHeight, height);
+        }
+
+        BufferedImage atlas = SpriteCache.createImage(atlasWidth, Math.max(1, y + shelfHeight), Transparency.TRANSLUCENT);
+        Graphics2D g = atlas.createGraphics();
+        Sprite[] sprites = new Sprite[images.length];
+        for(int i = 0; i < images.length; i++)
+        {
+            g.drawImage(images[i], xs[i], ys[i], null);
+            sprites[i] = new Sprite(atlas, xs[i], ys[i], images[i].getWidth(null), images[i].getHeight(null));
+        }
+        g.dispose();
+        return sprites;
+    }
+}
@@ -0,0 +1,148 @@
+package Client.Game.Rendering;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Klasa przechowująca atlasy obrazków przeskalowane do rozdzielczości ekranu. Scena rysowana jest w skali okna gry,
+ * więc rysowanie obrazka przez przekształcenie {@code Graphics2D} skalowałoby go w każdej klatce - zamiast tego cały
+ * atlas skalowany jest raz, przy pierwszym rysowaniu w danej skali, a obrazki kopiowane są z niego na ekran
+ * bez przekształcenia. Przeskalowana wersja tworzona jest ponownie dopiero po zmianie rozmiaru okna
+ */
+public final class SpriteCache
+{
+    /**
+     * Klasa reprezentująca atlas przeskalowany w określonej skali
+     */
+    private static final class ScaledAtlas
+    {
+        /**
+         * Skala pozioma
+         */
+        final double scaleX;
+
+        /**
+         * Skala pionowa
+         */
+        final double scaleY;
+
+        /**
+         * Przeskalowany atlas
+         */
+        final Image image;
+
+        /**
+         * Konstruktor, przypisuje wartości zmiennym
+         * @param scaleX Skala pozioma
+         * @param scaleY Skala pionowa
+         * @param image Przeskalowany atlas
+         */
+        ScaledAtlas(double scaleX, double scaleY, Image image)
+        {
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.image = image;
+        }
+    }
+
+    /**
+     * Przeskalowane atlasy, kluczem jest atlas oryginalny. Przechowywana jest tylko wersja w ostatnio
+     * używanej skali, a wpisy atlasów, do których nie ma już referencji, są usuwane
+     */
+    private static final Map<Image, ScaledAtlas> scaledAtlases = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private SpriteCache() {}
+
+    /**
+     * Rysuje obrazek. Jeśli obiekt {@code Graphics} jest przeskalowany, obrazek kopiowany jest z przeskalowanego
+     * wcześniej atlasu, bez przekształcenia, w miejscu wyznaczonym przez przekształcenie
+     * @param g Obiekt, na którym rysowany jest obrazek
+     * @param sprite Obrazek
+     * @param x Składowa x pozycji lewego górnego rogu, przed przekształceniem
+     * @param y Składowa y pozycji lewego górnego rogu, przed przekształceniem
+     */
+    public static void draw(Graphics g, Sprite sprite, int x, int y)
+    {
+        AffineTransform transform = g instanceof Graphics2D ? ((Graphics2D)g).getTransform() : null;
+        if(transform == null || !isScaling(transform)) {
+            g.drawImage(sprite.getAtlas(), x, y, x + sprite.getWidth(), y + sprite.getHeight(),
+                    sprite.getX(), sprite.getY(), sprite.getX() + sprite.getWidth(), sprite.getY() + sprite.getHeight(), null);
+            return;
+        }
+
+        double scaleX = transform.getScaleX(), scaleY = transform.getScaleY();
+        int sourceX1 = (int)Math.round(sprite.getX() * scaleX), sourceX2 = (int)Math.round((sprite.getX() + sprite.getWidth()) * scaleX);
+        int sourceY1 = (int)Math.round(sprite.getY() * scaleY), sourceY2 = (int)Math.round((sprite.getY() + sprite.getHeight()) * scaleY);
+        if(sourceX2 <= sourceX1 || sourceY2 <= sourceY1)
+            return;
+
+        Image scaled = getScaled(sprite.getAtlas(), scaleX, scaleY);
+        int targetX = (int)Math.round(x * scaleX + transform.getTranslateX());
+        int targetY = (int)Math.round(y * scaleY + transform.getTranslateY());
+        Graphics2D g2d = (Graphics2D)g;
+        g2d.setTransform(new AffineTransform());
+        g2d.drawImage(scaled, targetX, targetY, targetX + sourceX2 - sourceX1, targetY + sourceY2 - sourceY1,
+                sourceX1, sourceY1, sourceX2, sourceY2, null);
+        g2d.setTransform(transform);
+    }
+
+    /**
+     * Sprawdza, czy przekształcenie jest skalowaniem z ewentualnym przesunięciem, bez obrotu i odbicia - tylko takie
+     * przekształcenie można zastąpić przeskalowanym wcześniej obrazkiem
+     * @param transform Przekształcenie
+     * @return {@code true}, jeśli przekształcenie zmienia skalę
+     */
+    static boolean isScaling(AffineTransform transform)
+    {
+        int type = transform.getType();
+        if((type & (AffineTransform.TYPE_UNIFORM_SCALE | AffineTransform.TYPE_GENERAL_SCALE)) == 0)
+            return false;
+        return (type & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE | AffineTransform.TYPE_GENERAL_SCALE)) == 0;
+    }
+
+    /**
+     * Tworzy obraz w formacie ekranu, a bez ekranu w formacie RGB lub ARGB
+     * @param width Szerokość obrazu
+     * @param height Wysokość obrazu
+     * @param transparency Przezroczystość obrazu, jedna ze stałych {@link Transparency}
+     * @return Nowy obraz
+     */
+    static BufferedImage createImage(int width, int height, int transparency)
+    {
+        if(GraphicsEnvironment.isHeadless())
+            return new BufferedImage(width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(width, height, transparency);
+    }
+
+    /**
+     * Zwraca atlas przeskalowany w podanej skali, skalując go, jeśli nie ma go jeszcze w tej skali
+     * @param atlas Atlas oryginalny
+     * @param scaleX Skala pozioma
+     * @param scaleY Skala pionowa
+     * @return Przeskalowany atlas
+     */
+    private static Image getScaled(BufferedImage atlas, double scaleX, double scaleY)
+    {
+        ScaledAtlas cached = scaledAtlases.get(atlas);
+        if(cached != null && cached.scaleX == scaleX && cached.scaleY == scaleY)
+            return cached.image;
+
+        int width = Math.max(1, (int)Math.ceil(atlas.getWidth() * scaleX));
+        int height = Math.max(1, (int)Math.ceil(atlas.getHeight() * scaleY));
+        BufferedImage scaled = createImage(width, height, Transparency.TRANSLUCENT);
+        Graphics2D g = scaled.createGraphics();
+        g.scale(scaleX, scaleY);
+        g.drawImage(atlas, 0, 0, null);
+        g.dispose();
+        scaledAtlases.put(atlas, new ScaledAtlas(scaleX, scaleY, scaled));
+        return scaled;
+    }
+}
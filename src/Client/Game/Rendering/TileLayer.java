@@ -0,0 +1,134 @@
+package Client.Game.Rendering;
+
+import Client.Game.Environment.Tile;
+import Client.Game.Managers.GameManager;
+import Client.Game.Managers.Level;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Warstwa nieruchomych komórek planszy, narysowana raz do obrazu w pamięci. Każda klatka wyświetla ją jednym
+ * wywołaniem {@code drawImage}, a ponownie rysowane są tylko komórki, których typ się zmienił, np. zniszczone
+ * skrzynie. Obraz tworzony jest przy pierwszym wyświetleniu, więc poziomy rozgrywane bez okna go nie tworzą
+ */
+public class TileLayer
+{
+    /**
+     * Poziom, którego komórki są rysowane
+     */
+    private final Level level;
+
+    /**
+     * Komórki, których typ zmienił się od ostatniego wyświetlenia. Uzupełniana w wątku rozgrywki,
+     * opróżniana w wątku rysującym
+     */
+    private final Queue<Tile> changedTiles = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Obraz warstwy w rozdzielczości ekranu, {@code null} przed pierwszym wyświetleniem
+     */
+    private BufferedImage image;
+
+    /**
+     * Skala pozioma, w jakiej narysowany jest obraz warstwy
+     */
+    private double imageScaleX;
+
+    /**
+     * Skala pionowa, w jakiej narysowany jest obraz warstwy
+     */
+    private double imageScaleY;
+
+    /**
+     * Konstruktor, przypisuje wartości zmiennym
+     * @param level Poziom, którego komórki są rysowane
+     */
+    public TileLayer(Level level)
+    {
+        this.level = level;
+    }
+
+    /**
+     * Oznacza komórkę do ponownego narysowania przy następnym wyświetleniu
+     * @param tile Komórka, której typ się zmienił
+     */
+    public void invalidate(Tile tile)
+    {
+        changedTiles.add(tile);
+    }
+
+    /**
+     * Wyświetla warstwę, wcześniej rysując ją w całości lub rysując ponownie zmienione komórki. Obraz warstwy ma
+     * rozdzielczość ekranu i jest kopiowany bez przekształcenia, a rysowany od nowa dopiero po zmianie skali okna
+     * @param g Obiekt, na którym rysowana jest warstwa
+     */
+    public void display(Graphics g)
+    {
+        AffineTransform transform = g instanceof Graphics2D ? ((Graphics2D)g).getTransform() : null;
+        boolean scaling = transform != null && SpriteCache.isScaling(transform);
+        double scaleX = scaling ? transform.getScaleX() : 1;
+        double scaleY = scaling ? transform.getScaleY() : 1;
+
+        if(image == null || scaleX != imageScaleX || scaleY != imageScaleY)
+            image = createImage(scaleX, scaleY);
+        else if(!changedTiles.isEmpty())
+            redrawChangedTiles();
+
+        if(!scaling) {
+            g.drawImage(image, 0, 0, null);
+            return;
+        }
+        Graphics2D g2d = (Graphics2D)g;
+        g2d.setTransform(new AffineTransform());
+        g2d.drawImage(image, (int)Math.round(transform.getTranslateX()), (int)Math.round(transform.getTranslateY()), null);
+        g2d.setTransform(transform);
+    }
+
+    /**
+     * Tworzy obraz warstwy w podanej skali i rysuje na nim wszystkie komórki. Obraz tworzony jest w formacie ekranu,
+     * więc Java2D może przechowywać jego kopię w pamięci karty graficznej. Tekstury komórek pokrywają całą
+     * komórkę, więc obraz jest nieprzezroczysty i wyświetlany bez mieszania kanału alfa
+     * @param scaleX Skala pozioma
+     * @param scaleY Skala pionowa
+     * @return Obraz warstwy
+     */
+    private BufferedImage createImage(double scaleX, double scaleY)
+    {
+        int width = (int)Math.ceil(level.mapWidth * GameManager.DEFAULT_TILE_WIDTH * scaleX);
+        int height = (int)Math.ceil(level.mapHeight * GameManager.DEFAULT_TILE_WIDTH * scaleY);
+        BufferedImage created = SpriteCache.createImage(Math.max(1, width), Math.max(1, height), Transparency.OPAQUE);
+        imageScaleX = scaleX;
+        imageScaleY = scaleY;
+
+        changedTiles.clear();
+        Graphics2D g = created.createGraphics();
+        g.scale(scaleX, scaleY);
+        for(int x = 0; x < level.mapWidth; x++)
+            for(int y = 0; y < level.mapHeight; y++)
+                level.map[x][y].displayTexture(g);
+        g.dispose();
+        return created;
+    }
+
+    /**
+     * Czyści i rysuje ponownie komórki oznaczone metodą {@link #invalidate(Tile)}
+     */
+    private void redrawChangedTiles()
+    {
+        int tileWidth = GameManager.DEFAULT_TILE_WIDTH;
+        Graphics2D g = image.createGraphics();
+        g.scale(imageScaleX, imageScaleY);
+        g.setColor(Color.BLACK);
+        Tile tile;
+        while((tile = changedTiles.poll()) != null)
+        {
+            g.fillRect(tile.getX() * tileWidth, tile.getY() * tileWidth, tileWidth, tileWidth);
+            tile.displayTexture(g);
+        }
+        g.dispose();
+    }
+}
@@ -0,0 +1,109 @@
+package Client.Game.Simulation;
+
+import Client.Game.Entities.Enemy;
+import Client.Game.Managers.Level;
+import Client.Utils;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Program rozgrywający mecze bez okna i bez obrazków - wczytuje jedynie właściwości klas i typy komórek,
+ * a następnie przesuwa {@link World} metodą {@link World#step()}. Gracz sterowany jest losowo, a ziarnem
+ * meczu i sterowania jest numer meczu, więc dwa uruchomienia dają ten sam wynik. Uruchamiany z katalogu gry:
+ * {@code java -Djava.awt.headless=true Client.Game.Simulation.HeadlessMatches [liczba meczów] [limit klatek]}
+ */
+public final class HeadlessMatches
+{
+    /**
+     * Domyślna liczba meczów
+     */
+    private static final int DEFAULT_MATCHES = 50;
+
+    /**
+     * Domyślna największa liczba klatek jednego meczu
+     */
+    private static final int DEFAULT_MAX_STEPS = 20_000;
+
+    /**
+     * Co ile klatek gracz losuje nowy kierunek ruchu
+     */
+    private static final int DIRECTION_CHANGE_INTERVAL = 30;
+
+    /**
+     * Średnia liczba klatek między kolejnymi bombami gracza
+     */
+    private static final int BOMB_INTERVAL = 60;
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private HeadlessMatches() {}
+
+    /**
+     * Rozgrywa mecze i wypisuje ich podsumowanie
+     * @param args Liczba meczów i największa liczba klatek jednego meczu - oba argumenty są opcjonalne
+     * @throws IOException Występuje, gdy nie udało się wczytać typów komórek
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MATCHES;
+        int maxSteps = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_STEPS;
+
+        Utils.loadAppProperties();
+        Utils.loadTileTypes();
+
+        int[] events = new int[3];
+        World.Listener listener = new World.Listener()
+        {
+            @Override
+            public void bombExploded() {
+                events[0]++;
+            }
+
+            @Override
+            public void enemyKilled(Enemy enemy, double points) {
+                events[1]++;
+            }
+
+            @Override
+            public void collected(String type) {
+                events[2]++;
+            }
+        };
+
+        long startTime = System.nanoTime();
+        long steps = 0;
+        int victories = 0, defeats = 0;
+        double score = 0;
+        for(int match = 0; match < matches; match++)
+        {
+            World world = new World(Level::loadLevelFromFile, listener, match);
+            world.start();
+            Random random = new Random(match);
+            for(int step = 0; step < maxSteps && world.getState() == World.State.RUNNING; step++)
+            {
+                if(step % DIRECTION_CHANGE_INTERVAL == 0) {
+                    world.getPlayer().left = random.nextBoolean();
+                    world.getPlayer().up = random.nextBoolean();
+                }
+                if(random.nextInt(BOMB_INTERVAL) == 0)
+                    world.requestBomb();
+                world.step();
+                steps++;
+            }
+            if(world.getState() == World.State.VICTORY)
+                victories++;
+            else if(world.getState() == World.State.DEFEAT)
+                defeats++;
+            score += world.getScore();
+        }
+        long elapsed = (System.nanoTime() - startTime) / 1_000_000;
+
+        System.out.println("Mecze: " + matches + " (wygrane " + victories + ", przegrane " + defeats + "), klatki: " + steps
+                + ", czas: " + elapsed + " ms");
+        System.out.println("Wybuchy: " + events[0] + ", zabici przeciwnicy: " + events[1] + ", znajdzki: " + events[2]
+                + ", suma wynikow: " + Math.round(score));
+        System.out.println("Wczytane obrazki: " + (Utils.playerFrames != null || !Utils.tileTextures.isEmpty()));
+    }
+}
@@ -0,0 +1,455 @@
+package Client.Game.Simulation;
+
+import Client.Game.Entities.Enemy;
+import Client.Game.Entities.Player;
+import Client.Game.Environment.Bomb;
+import Client.Game.Environment.Collectable;
+import Client.Game.Managers.GameManager;
+import Client.Game.Managers.Level;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Klasa przechowująca stan rozgrywki - poziom, gracza, przeciwników, znajdzki, bomby i wynik - oraz
+ * przesuwająca go o jedną klatkę metodą {@link #step()}. Nie wymaga okna ani wczytanych obrazków - wystarczą
+ * właściwości klas i typy komórek ({@link Client.Utils#loadTileTypes()}), a animacje bez obrazków jedynie
+ * odliczają klatki - więc rozgrywka może toczyć się bez okna, np. w wielu instancjach naraz
+ * ({@link HeadlessMatches}). Wyświetlanie jedynie odczytuje stan, a zdarzenia (dźwięki, napisy, koniec gry)
+ * przekazywane są słuchaczowi {@link Listener}
+ */
+public class World
+{
+    /**
+     * Interfejs słuchacza zdarzeń rozgrywki. Metody wywoływane są w wątku wykonującym {@link #step()}
+     */
+    public interface Listener
+    {
+        /**
+         * Wywoływana po położeniu bomby
+         */
+        default void bombPlanted() {}
+
+        /**
+         * Wywoływana po wybuchu bomby
+         */
+        default void bombExploded() {}
+
+        /**
+         * Wywoływana, gdy gracz zostaje zraniony
+         */
+        default void playerHit() {}
+
+        /**
+         * Wywoływana po zabiciu przeciwnika
+         * @param enemy Zabity przeciwnik
+         * @param points Punkty otrzymane za zabicie, z uwzględnieniem comba
+         */
+        default void enemyKilled(Enemy enemy, double points) {}
+
+        /**
+         * Wywoływana po podniesieniu znajdzki
+         * @param type Typ znajdzki
+         */
+        default void collected(String type) {}
+
+        /**
+         * Wywoływana po rozpoczęciu poziomu
+         * @param levelNumber Numer poziomu
+         */
+        default void levelStarted(int levelNumber) {}
+
+        /**
+         * Wywoływana po zakończeniu gry
+         * @param victory Mówi, czy gracz przeszedł wszystkie poziomy
+         */
+        default void gameEnded(boolean victory) {}
+    }
+
+    /**
+     * Interfejs źródła poziomów
+     */
+    public interface LevelSource
+    {
+        /**
+         * Zwraca nowy, nierozegrany poziom
+         * @param levelIndex Numer poziomu
+         * @return Poziom
+         * @throws FileNotFoundException Występuje, gdy brakuje pliku poziomu
+         */
+        Level getLevel(int levelIndex) throws FileNotFoundException;
+    }
+
+    /**
+     * Typ wyliczeniowy określający stan rozgrywki
+     */
+    public enum State {RUNNING, VICTORY, DEFEAT}
+
+    /**
+     * Źródło kolejnych poziomów
+     */
+    private final LevelSource levelSource;
+
+    /**
+     * Słuchacz zdarzeń rozgrywki
+     */
+    private final Listener listener;
+
+    /**
+     * Generator liczb losowych używany przez przeciwników - przy tym samym ziarnie rozgrywka jest powtarzalna
+     */
+    private final Random random;
+
+    /**
+     * Obecny poziom, {@code null} przed rozpoczęciem gry
+     */
+    private Level level;
+
+    /**
+     * Postać gracza
+     */
+    private Player player;
+
+    /**
+     * Numer obecnego poziomu
+     */
+    private int levelNumber;
+
+    /**
+     * Liczba klatek rozgrywki od jej początku
+     */
+    private int frameCount;
+
+    /**
+     * Wynik gry, bez punktów odejmowanych za czas
+     */
+    private double score;
+
+    /**
+     * Znacznik czasowy momentu, do którego trwa combo
+     */
+    private int comboLifeTS = -1;
+
+    /**
+     * Mówi, który poziom comba osiągnął gracz
+     */
+    private int comboIndex;
+
+    /**
+     * Liczba bomb, które obecnie znajdują się na mapie
+     */
+    private int bombsPlaced;
+
+    /**
+     * Zasięg wybuchu bomby w liczbie komórek - zwiększany przez znajdzki
+     */
+    private int bombRange;
+
+    /**
+     * Mówi, czy gracz chce położyć bombę w najbliższej klatce. Ustawiana z wątku obsługującego klawiaturę
+     */
+    private volatile boolean bombRequested;
+
+    /**
+     * Stan rozgrywki
+     */
+    private State state = State.RUNNING;
+
+    /**
+     * Konstruktor, przypisuje wartości zmiennym. Gra rozpoczyna się dopiero po wywołaniu {@link #start()}
+     * @param levelSource Źródło kolejnych poziomów
+     * @param listener Słuchacz zdarzeń rozgrywki
+     * @param seed Ziarno generatora liczb losowych
+     */
+    public World(LevelSource levelSource, Listener listener, long seed)
+    {
+        this.levelSource = levelSource;
+        this.listener = listener;
+        this.random = new Random(seed);
+        this.score = GameManager.INITIAL_POINTS;
+        this.bombRange = Bomb.range;
+    }
+
+    /**
+     * Rozpoczyna grę na pierwszym poziomie
+     */
+    public void start()
+    {
+        levelNumber = 1;
+        loadLevel(levelNumber);
+    }
+
+    /**
+     * Przesuwa rozgrywkę o jedną klatkę - porusza gracza i przeciwników, sprawdza kolizje,
+     * aktualizuje bomby i eksplozje na komórkach planszy. Po zakończeniu gry jedynie zapamiętuje pozycje,
+     * by wyświetlane jednostki się zatrzymały
+     */
+    public void step()
+    {
+        if(level == null)
+            return;
+
+        player.savePosition();
+        for(Enemy enemy : level.enemies)
+            enemy.savePosition();
+
+        if(state != State.RUNNING)
+            return;
+
+        if(bombRequested) {
+            bombRequested = false;
+            player.currentTile().plantBomb();
+        }
+
+        player.move();
+
+        ArrayList<Enemy> enemies = level.enemies;
+        for (int i = enemies.size() - 1; i >= 0; i--) {
+            Enemy enemy = enemies.get(i);
+            if(player.collideEnemies(enemy))
+                hurtPlayer();
+            if (enemy.collideExplosion(enemy.currentTile()))
+                enemy.setDead();
+
+            enemy.move(player);
+            if (enemy.isDead()) {
+                enemies.remove(i);
+
+                double deltaScore = enemy.getPointValue() * (1d + comboIndex * GameManager.COMBO_MULTIPLIER);
+                comboLifeTS = frameCount + GameManager.COMBO_DURATION;
+                score += deltaScore;
+                comboIndex++;
+                listener.enemyKilled(enemy, deltaScore);
+            }
+        }
+
+        if(frameCount == comboLifeTS)
+            comboIndex = 0;
+
+        Collectable collectable = player.currentTile().getCollectable();
+        if(player.collideCollectable(collectable) && collectable.collect())
+            applyCollectable(collectable.getType());
+
+        if(player.collideExplosion(player.currentTile()))
+            hurtPlayer();
+
+        if (frameCount >= player.getEndFrameCount())
+            player.setImmortal(false, 0);
+
+        if (player.getLives() == 0 && !player.isDead()) {
+            player.setDead(true);
+            state = State.DEFEAT;
+            listener.gameEnded(false);
+        }
+
+        for(int x = 0; x < level.mapWidth; x++)
+            for(int y = 0; y < level.mapHeight; y++)
+                level.map[x][y].step();
+
+        frameCount++;
+    }
+
+    /**
+     * Zgłasza chęć położenia bomby - bomba zostanie położona w najbliższej klatce
+     */
+    public void requestBomb()
+    {
+        bombRequested = true;
+    }
+
+    /**
+     * Rezerwuje miejsce dla nowej bomby, o ile nie przekroczono limitu
+     * @param bombLimit Limit bomb, które mogą być obecne na mapie jednocześnie
+     * @return {@code true}, jeśli bomba może zostać położona
+     */
+    public boolean placeBomb(int bombLimit)
+    {
+        if(bombsPlaced >= bombLimit)
+            return false;
+        bombsPlaced++;
+        listener.bombPlanted();
+        return true;
+    }
+
+    /**
+     * Zwalnia miejsce po bombie, która wybuchła
+     */
+    public void removeBomb()
+    {
+        bombsPlaced--;
+    }
+
+    /**
+     * Zwiększa zasięg wybuchu bomb
+     */
+    public void increaseBombRange()
+    {
+        bombRange++;
+    }
+
+    /**
+     * Getter zmiennej {@link #listener}
+     * @return Zmienna {@link #listener}
+     */
+    public Listener getListener() {
+        return listener;
+    }
+
+    /**
+     * Getter zmiennej {@link #random}
+     * @return Zmienna {@link #random}
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Getter zmiennej {@link #level}
+     * @return Zmienna {@link #level}
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Getter zmiennej {@link #player}
+     * @return Zmienna {@link #player}
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Zwraca przeciwników na obecnym poziomie
+     * @return Lista przeciwników
+     */
+    public List<Enemy> getEnemies() {
+        return level == null ? Collections.emptyList() : level.enemies;
+    }
+
+    /**
+     * Zwraca znajdzki na obecnym poziomie
+     * @return Lista znajdziek
+     */
+    public List<Collectable> getCollectables() {
+        return level == null ? Collections.emptyList() : level.collectables;
+    }
+
+    /**
+     * Getter zmiennej {@link #levelNumber}
+     * @return Zmienna {@link #levelNumber}
+     */
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * Getter zmiennej {@link #frameCount}
+     * @return Zmienna {@link #frameCount}
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Getter zmiennej {@link #score}
+     * @return Zmienna {@link #score}
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Getter zmiennej {@link #bombRange}
+     * @return Zmienna {@link #bombRange}
+     */
+    public int getBombRange() {
+        return bombRange;
+    }
+
+    /**
+     * Getter zmiennej {@link #state}
+     * @return Zmienna {@link #state}
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Rani gracza, o ile nie jest nieśmiertelny
+     */
+    private void hurtPlayer()
+    {
+        if (!player.isImmortal())
+            listener.playerHit();
+        player.loseLife(frameCount);
+    }
+
+    /**
+     * Stosuje efekt podniesionej znajdzki
+     * @param type Typ znajdzki
+     */
+    private void applyCollectable(String type)
+    {
+        switch(type)
+        {
+            case "boots":
+                player.increaseMovementSpeed();
+                break;
+            case "gunpowder":
+                increaseBombRange();
+                break;
+            case "heart":
+                player.addLife();
+                break;
+            case "portal":
+                nextLevel();
+                break;
+        }
+        listener.collected(type);
+    }
+
+    /**
+     * Przechodzi na następny poziom lub kończy grę zwycięstwem, jeśli był to ostatni poziom
+     */
+    private void nextLevel()
+    {
+        levelNumber++;
+        if(levelNumber > GameManager.LEVEL_COUNT) {
+            state = State.VICTORY;
+            listener.gameEnded(true);
+            return;
+        }
+        loadLevel(levelNumber);
+    }
+
+    /**
+     * Pobiera poziom ze źródła i ustawia go jako obecny - przenosi na niego gracza
+     * @param levelIndex Numer poziomu
+     */
+    private void loadLevel(int levelIndex)
+    {
+        Level loaded;
+        try {
+            loaded = levelSource.getLevel(levelIndex);
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        loaded.world = this;
+        if(player == null)
+            player = new Player(loaded);
+        else
+            player.setCurrentLevel(loaded);
+        player.setCoords(loaded.playerStartX, loaded.playerStartY);
+        player.setMortal();
+
+        bombsPlaced = 0;
+        level = loaded;
+        listener.levelStarted(levelIndex);
+    }
+}
@@ -1,5 +1,6 @@
 package Client.Game.Utilities;
 
+import Client.Game.Entities.Player;
 import Client.Game.Managers.GamePanel;
 
 import java.awt.event.KeyEvent;
@@ -50,29 +51,30 @@ public class GameKeyListener implements KeyListener
             }
         }
 
-        if(gamePanel.timeManager.paused)
+        Player player = gamePanel.getWorld().getPlayer();
+        if(gamePanel.timeManager.paused || player == null)
             return;
 
         switch (key)
         {
             case KeyEvent.VK_LEFT:
-                gamePanel.player.left = true;
+                player.left = true;
                 break;
 
             case KeyEvent.VK_RIGHT:
-                gamePanel.player.right = true;
+                player.right = true;
                 break;
 
             case KeyEvent.VK_UP:
-                gamePanel.player.up = true;
+                player.up = true;
                 break;
 
             case KeyEvent.VK_DOWN:
-                gamePanel.player.down = true;
+                player.down = true;
                 break;
 
             case KeyEvent.VK_SPACE:
-                gamePanel.player.currentTile().plantBomb();
+                gamePanel.getWorld().requestBomb();
                 break;
         }
     }
@@ -84,7 +86,8 @@ public class GameKeyListener implements KeyListener
     @Override
     public void keyReleased(KeyEvent e)
     {
-        if(gamePanel.timeManager.paused)
+        Player player = gamePanel.getWorld().getPlayer();
+        if(gamePanel.timeManager.paused || player == null)
             return;
 
         int key = e.getKeyCode();
@@ -92,19 +95,19 @@ public class GameKeyListener implements KeyListener
         switch (key)
         {
             case KeyEvent.VK_LEFT:
-                gamePanel.player.left = false;
+                player.left = false;
                 break;
 
             case KeyEvent.VK_RIGHT:
-                gamePanel.player.right = false;
+                player.right = false;
                 break;
 
             case KeyEvent.VK_UP:
-                gamePanel.player.up = false;
+                player.up = false;
                 break;
 
             case KeyEvent.VK_DOWN:
-                gamePanel.player.down = false;
+                player.down = false;
                 break;
         }
     }
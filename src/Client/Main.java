@@ -45,7 +45,8 @@ public class Main
     public static Main instance;
 
     /**
-     * Wczytuje właściwości klas za pośrednictwem {@link Client.Utils#loadAppProperties()}.
+     * Wczytuje właściwości klas z serwera za pośrednictwem {@link Client.Utils#getAppProperties(ClientConnection)}
+     * lub z plików za pośrednictwem {@link Client.Utils#loadAppProperties()}.
      * Wywołuje konstruktor tej klasy
      * @param args Argumenty początkowe
      */
@@ -76,19 +77,10 @@ public class Main
             }
 
             Utils.getAppProperties(instance.clientConnection);
+            instance.clientConnection.awaitBootstrap();
 
-            synchronized (instance.clientConnection.requestsSent)
-            {
-                while(instance.clientConnection.requestsSent.get() != 0)
-                {
-                    try {
-                        instance.clientConnection.requestsSent.wait();
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
-
+            if(!Utils.getOnlineGaming())
+                Utils.loadAppProperties();
             System.out.println("All properties ready");
         }
         else
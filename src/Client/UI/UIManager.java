@@ -7,6 +7,7 @@ import Client.Game.Managers.GameManager;
 import Client.Main;
 import Client.Sound.SoundManager;
 import Client.Utils;
+import Common.Protocol;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
@@ -392,12 +393,12 @@ public class UIManager implements Runnable, ActionListener
     }
 
     /**
-     * Metoda wysyłająca żądanie pobrania wyników i czekająca na ich odebranie
+     * Metoda wysyłająca żądanie pobrania pierwszej strony wyników i czekająca na jej odebranie
      */
     public void getHighScores(){
         if(Utils.getOnlineGaming()) {
             ClientConnection clientConnection = Main.instance.clientConnection;
-            clientConnection.writeAndFlush("GET Leaderboard", null);
+            clientConnection.writeAndFlush(Protocol.encodeGetLeaderboardPage(0, Protocol.MAX_LEADERBOARD_SIZE));
             clientConnection.highScoresRecived.set(false);
 
             synchronized (clientConnection.highScoresRecived) {
@@ -6,12 +6,18 @@ import Client.Game.Entities.SmartEnemy;
 import Client.Game.Entities.StupidEnemy;
 import Client.Game.Environment.*;
 import Client.Game.Managers.GameManager;
+import Client.Game.Rendering.AssetLoader;
+import Client.Game.Rendering.GifLoader;
+import Client.Game.Rendering.Sprite;
+import Client.Game.Rendering.SpriteAtlas;
 import Client.Game.Utilities.Vector;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Properties;
 import java.util.Random;
@@ -28,34 +34,44 @@ public class Utils
     public static HashMap<Integer, TileType> tileTypes = new HashMap<>();
 
     /**
-     * Tablica z obrazkami animacji gracza
+     * Tekstury typów komórek, kluczem jest ID typu. Pusta, dopóki tekstury nie zostaną wczytane
      */
-    public static ImageIcon[][] playerFrames;
+    public static HashMap<Integer, ImageIcon> tileTextures = new HashMap<>();
+
+    /**
+     * Tablica z obrazkami animacji gracza, wyciętymi ze wspólnego atlasu
+     */
+    public static Sprite[][] playerFrames;
 
     /**
      * Tablica z obrazkami animacji jednego z typów przeciwników
      */
-    public static ImageIcon[][] stupidEnemyFrames;
+    public static Sprite[][] stupidEnemyFrames;
 
     /**
      * Tablica z obrazkami animacji jednego z typów przeciwników
      */
-    public static ImageIcon[][] smartEnemyFrames;
+    public static Sprite[][] smartEnemyFrames;
 
     /**
      * Tablica z obrazkami animacji bomby
      */
-    public static ImageIcon[] bombFrames;
+    public static Sprite[] bombFrames;
 
     /**
      * Tablica z obrazkami animacji eksplozji
      */
-    public static ImageIcon[] explosionFrames;
+    public static Sprite[] explosionFrames;
 
     /**
      * Tablica z obrazkami przediotów do podniesienia
      */
-    public static HashMap<String,ImageIcon> collectableFrames;
+    public static HashMap<String,Sprite> collectableFrames;
+
+    /**
+     * Sekwencja obrazków animacji końca gry, jeden obrazek na klatkę rozgrywki - {@code null}, jeśli brak pliku animacji
+     */
+    public static Sprite[] gameoverFrames;
 
     /**
      * Zmienna określająca czy gra ma być online
@@ -63,7 +79,7 @@ public class Utils
     private final static AtomicBoolean onlineGaming = new AtomicBoolean();
 
     /**
-     * Tworzy plik czcionki o wybranym rozmiarze i stylu
+     * Zwraca czcionkę o wybranym rozmiarze i stylu z {@link FontRegistry} - plik wczytywany jest tylko raz
      * @param name Nazwa pliku typu TrueTypeFont w folderze z czcionkami
      * @param size Rozmiar czcionki
      * @param style Styl czcionki
@@ -71,15 +87,11 @@ public class Utils
      */
     public static Font createCustomFont(String name, int size, int style)
     {
-        Font font = null;
-        try {
-            font = Font.createFont(Font.TRUETYPE_FONT, new FileInputStream(new File("./data/fonts/" + name))).deriveFont(style, size);
-        }catch(FontFormatException | IOException e) {e.printStackTrace();}
-        return font;
+        return FontRegistry.get(name, size, style);
     }
 
     /**
-     * Metoda wczytuje z pliku planszę/mapę gry
+     * Metoda wczytuje z plików typy komórek planszy - bez tekstur, które wczytuje {@link #loadTileTextures()}
      * @throws IOException Występuje przy błędzie wczytywania plików
      * @throws IllegalArgumentException Występuje przy błędzie parsowania danych
      */
@@ -90,146 +102,184 @@ public class Utils
         for(File file : files)
         {
             Properties tileProperties = new Properties();
-            tileProperties.load(new FileInputStream(file));
-
+            try (FileInputStream fileInputStream = new FileInputStream(file)) {
+                tileProperties.load(fileInputStream);
+            }
             int ID = Integer.parseInt(tileProperties.getProperty("ID"));
             boolean obstacle = Boolean.parseBoolean(tileProperties.getProperty("obstacle"));
             boolean destructible = Boolean.parseBoolean(tileProperties.getProperty("destructible"));
 
-            String name = tileProperties.getProperty("textureName");
-            ImageIcon icon = new ImageIcon("./data/img/textures/" + name);
-            ImageIcon scaledIcon = resizeImageIcon(icon, GameManager.DEFAULT_TILE_WIDTH, GameManager.DEFAULT_TILE_WIDTH);
-
-            tileTypes.put(ID, new TileType(ID, scaledIcon, obstacle, destructible));
+            tileTypes.put(ID, new TileType(ID, tileProperties.getProperty("textureName"), obstacle, destructible));
         }
     }
 
     /**
-     * Wczytuje obrazki animacji gracza
+     * Wczytuje równolegle tekstury typów komórek z {@link #tileTypes} do {@link #tileTextures}
+     * @throws IOException Występuje przy błędzie wczytywania plików
+     */
+    public static void loadTileTextures() throws IOException
+    {
+        TileType[] types = tileTypes.values().toArray(new TileType[0]);
+        String[] texturePaths = new String[types.length];
+        for(int i = 0; i < types.length; i++)
+            texturePaths[i] = "./data/img/textures/" + types[i].textureName;
+
+        BufferedImage[] textures = AssetLoader.loadImages(texturePaths, GameManager.DEFAULT_TILE_WIDTH, GameManager.DEFAULT_TILE_WIDTH);
+        for(int i = 0; i < types.length; i++)
+            tileTextures.put(types[i].ID, new ImageIcon(textures[i]));
+    }
+
+    /**
+     * Wczytuje obrazki animacji gracza i układa je na jednym atlasie
+     * @throws IOException Występuje przy błędzie wczytywania plików
      */
-    public static void loadPlayerFrames()
+    public static void loadPlayerFrames() throws IOException
     {
         int numberOfAnimations = Integer.parseInt(Player.properties.getProperty("numberOfAnimations"));
         int numberOfFrames = Integer.parseInt(Player.properties.getProperty("numberOfFrames"));
         double imageWidthRatio = Double.parseDouble(Player.properties.getProperty("imageWidthRatio"));
         double imageHeightRatio = Double.parseDouble(Player.properties.getProperty("imageHeightRatio"));
 
-        playerFrames = new ImageIcon[numberOfAnimations][numberOfFrames];
-        for (int i = 0; i < playerFrames.length; i++)
-        {
-            for (int j = 0; j < playerFrames[i].length; j++)
-            {
-                int index  = i * numberOfFrames + j;
-                ImageIcon frame = new ImageIcon("./data/img/player/player" + index + ".png");
-                ImageIcon resizedFrame = resizeImageIcon(frame, (int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
-                playerFrames[i][j] = resizedFrame;
-            }
-        }
+        String[][] paths = new String[numberOfAnimations][numberOfFrames];
+        for (int i = 0; i < paths.length; i++)
+            for (int j = 0; j < paths[i].length; j++)
+                paths[i][j] = "./data/img/player/player" + (i * numberOfFrames + j) + ".png";
+        playerFrames = loadAnimations(paths, (int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
     }
 
     /**
-     * Wczytuje obrazki animacji przeciwników
+     * Wczytuje obrazki animacji przeciwników i układa obrazki każdego typu przeciwnika na osobnym atlasie
+     * @throws IOException Występuje przy błędzie wczytywania plików
      */
-    public static void loadEnemyFrames()
+    public static void loadEnemyFrames() throws IOException
     {
         String[] directions = { "left", "right", "up", "down" };
         int numberOfAnimations = Integer.parseInt(Enemy.properties.getProperty("numberOfAnimations"));
         int numberOfFrames = Integer.parseInt(Enemy.properties.getProperty("numberOfFrames"));
-        double imageWidthRatio = Double.parseDouble(Enemy.properties.getProperty("imageWidthRatio"));
-        double imageHeightRatio = Double.parseDouble(Enemy.properties.getProperty("imageHeightRatio"));
-
-        stupidEnemyFrames = new ImageIcon[numberOfAnimations][numberOfFrames];
-        for (int i = 0; i < stupidEnemyFrames.length; i++)
-        {
-            for (int j = 0; j < stupidEnemyFrames[i].length; j++)
-            {
-                ImageIcon frame = new ImageIcon("./data/img/enemies/ghostWhite/" + directions[i] + j + ".png");
-                ImageIcon resizedFrame = resizeImageIcon(frame, (int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
-                stupidEnemyFrames[i][j] = resizedFrame;
-            }
-        }
+        int width = (int)(GameManager.DEFAULT_TILE_WIDTH * Double.parseDouble(Enemy.properties.getProperty("imageWidthRatio")));
+        int height = (int)(GameManager.DEFAULT_TILE_WIDTH * Double.parseDouble(Enemy.properties.getProperty("imageHeightRatio")));
 
-        smartEnemyFrames = new ImageIcon[numberOfAnimations][numberOfFrames];
-        for (int i = 0; i < smartEnemyFrames.length; i++)
+        String[][] stupidPaths = new String[numberOfAnimations][numberOfFrames];
+        String[][] smartPaths = new String[numberOfAnimations][numberOfFrames];
+        for (int i = 0; i < numberOfAnimations; i++)
         {
-            for (int j = 0; j < smartEnemyFrames[i].length; j++)
+            for (int j = 0; j < numberOfFrames; j++)
             {
-                ImageIcon frame = new ImageIcon("./data/img/enemies/ghostBlue/" + directions[i] + j + ".png");
-                ImageIcon resizedFrame = resizeImageIcon(frame, (int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
-                smartEnemyFrames[i][j] = resizedFrame;
+                stupidPaths[i][j] = "./data/img/enemies/ghostWhite/" + directions[i] + j + ".png";
+                smartPaths[i][j] = "./data/img/enemies/ghostBlue/" + directions[i] + j + ".png";
             }
         }
+        stupidEnemyFrames = loadAnimations(stupidPaths, width, height);
+        smartEnemyFrames = loadAnimations(smartPaths, width, height);
     }
 
     /**
-     * Wczytuje obrazki animacji bomby
+     * Wczytuje obrazki animacji bomby i układa je na jednym atlasie
+     * @throws IOException Występuje przy błędzie wczytywania plików
      */
-    public static void loadBombFrames()
+    public static void loadBombFrames() throws IOException
     {
         int numberOfFrames = Integer.parseInt(Bomb.properties.getProperty("numberOfFrames"));
         double imageWidthRatio = Double.parseDouble(Bomb.properties.getProperty("imageWidthRatio"));
         double imageHeightRatio = Double.parseDouble(Bomb.properties.getProperty("imageHeightRatio"));
 
-        bombFrames = new ImageIcon[numberOfFrames];
-        for(int i = 0; i < bombFrames.length; i++)
-        {
-            ImageIcon frame = new ImageIcon("./data/img/bomb/bomb" + i + ".png");
-            ImageIcon resizedFrame = resizeImageIcon(frame, (int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
-            bombFrames[i] = resizedFrame;
-        }
+        String[] paths = new String[numberOfFrames];
+        for(int i = 0; i < paths.length; i++)
+            paths[i] = "./data/img/bomb/bomb" + i + ".png";
+        bombFrames = SpriteAtlas.pack(AssetLoader.loadImages(paths, (int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio)));
     }
 
     /**
-     * Wczytuje obrazki animacji eksplozji
+     * Wczytuje obrazki animacji eksplozji i układa je na jednym atlasie
+     * @throws IOException Występuje przy błędzie wczytywania plików
      */
-    public static void loadExplosionFrames()
+    public static void loadExplosionFrames() throws IOException
     {
         int numberOfFrames = Integer.parseInt(Explosion.properties.getProperty("numberOfFrames"));
         double imageWidthRatio = Double.parseDouble(Explosion.properties.getProperty("imageWidthRatio"));
         double imageHeightRatio = Double.parseDouble(Explosion.properties.getProperty("imageHeightRatio"));
 
-        explosionFrames = new ImageIcon[numberOfFrames];
-        for(int i = 0; i < explosionFrames.length; i++)
-        {
-            ImageIcon frame = new ImageIcon("./data/img/explosion/explosion" + i + ".png");
-            ImageIcon resizedFrame = resizeImageIcon(frame, (int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
-            explosionFrames[i] = resizedFrame;
-        }
+        String[] paths = new String[numberOfFrames];
+        for(int i = 0; i < paths.length; i++)
+            paths[i] = "./data/img/explosion/explosion" + i + ".png";
+        explosionFrames = SpriteAtlas.pack(AssetLoader.loadImages(paths, (int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio)));
     }
 
     /**
-     * Metoda ładująca obrazki znajdziek
+     * Zwraca obrazek znajdzki
+     * @param type Typ znajdzki
+     * @return Obrazek lub {@code null}, jeśli obrazki znajdziek nie zostały wczytane
      */
-    public static void loadCollectableFrames(){
+    public static Sprite getCollectableFrame(String type)
+    {
+        return collectableFrames != null ? collectableFrames.get(type) : null;
+    }
 
+    /**
+     * Metoda ładująca obrazki znajdziek i układająca je na jednym atlasie
+     * @throws IOException Występuje przy błędzie wczytywania plików
+     */
+    public static void loadCollectableFrames() throws IOException
+    {
         double imageWidthRatio = Double.parseDouble(Collectable.properties.getProperty("imageWidthRatio"));
         double imageHeightRatio = Double.parseDouble(Collectable.properties.getProperty("imageHeightRatio"));
 
-        collectableFrames = new HashMap<>();
-
-        ImageIcon frame;
+        String[] types = { "boots", "gunpowder", "heart", "portal" };
+        String[] paths = new String[types.length];
+        for(int i = 0; i < types.length; i++)
+            paths[i] = "./data/img/collectable/" + types[i] + ".png";
 
-        frame = new ImageIcon("./data/img/collectable/boots.png");
-        frame = resizeImageIcon(frame,(int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
-        collectableFrames.put("boots",frame);
-
-        frame = new ImageIcon("./data/img/collectable/gunpowder.png");
-        frame = resizeImageIcon(frame,(int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
-        collectableFrames.put("gunpowder",frame);
+        Sprite[] sprites = SpriteAtlas.pack(AssetLoader.loadImages(paths, (int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio)));
+        collectableFrames = new HashMap<>();
+        for(int i = 0; i < types.length; i++)
+            collectableFrames.put(types[i], sprites[i]);
+    }
 
-        frame = new ImageIcon("./data/img/collectable/heart.png");
-        frame = resizeImageIcon(frame,(int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
-        collectableFrames.put("heart",frame);
+    /**
+     * Wczytuje animację końca gry. Brak pliku nie jest błędem - gra kończy się wtedy bez animacji
+     * @throws IOException Występuje przy błędzie odczytu istniejącego pliku
+     */
+    public static void loadGameoverFrames() throws IOException
+    {
+        File file = new File("./data/img/gameover/gameover.gif");
+        if(!file.isFile()) {
+            System.out.println("Brak pliku animacji konca gry " + file.getPath());
+            gameoverFrames = null;
+            return;
+        }
+        gameoverFrames = GifLoader.load(file.getPath(), 1000 / GameManager.getFrameRate());
+    }
 
-        frame = new ImageIcon("./data/img/collectable/portal.png");
-        frame = resizeImageIcon(frame,(int)(GameManager.DEFAULT_TILE_WIDTH * imageWidthRatio), (int)(GameManager.DEFAULT_TILE_WIDTH * imageHeightRatio));
-        collectableFrames.put("portal",frame);
+    /**
+     * Wczytuje obrazki wszystkich animacji rodziny i układa je na jednym atlasie
+     * @param paths Ścieżki plików, pierwszy indeks to numer animacji, drugi - numer klatki
+     * @param width Żądana szerokość obrazków
+     * @param height Żądana wysokość obrazków
+     * @return Fragmenty atlasu w tym samym układzie
+     * @throws IOException Występuje przy błędzie wczytywania plików
+     */
+    private static Sprite[][] loadAnimations(String[][] paths, int width, int height) throws IOException
+    {
+        ArrayList<String> flat = new ArrayList<>();
+        for(String[] animation : paths)
+            flat.addAll(Arrays.asList(animation));
+        Sprite[] packed = SpriteAtlas.pack(AssetLoader.loadImages(flat.toArray(new String[0]), width, height));
+
+        Sprite[][] sprites = new Sprite[paths.length][];
+        int index = 0;
+        for(int i = 0; i < paths.length; i++)
+        {
+            sprites[i] = new Sprite[paths[i].length];
+            for(int j = 0; j < paths[i].length; j++)
+                sprites[i][j] = packed[index++];
+        }
+        return sprites;
     }
 
     /**
      * Wywołuje metody wczytujące właściwości (pliki .property) dla klas
      */
-    static void loadAppProperties()
+    public static void loadAppProperties()
     {
         GameManager.loadProperties(null);
         Tile.loadProperties(null);
@@ -240,16 +290,14 @@ public class Utils
         Collectable.loadProperties(null);
     }
 
+    /**
+     * Wysyła do serwera jedno zapytanie startowe o właściwości wszystkich klas oraz wszystkie poziomy.
+     * Jeśli na dysku zapisana jest aktualna kopia, dane zostaną wczytane z dysku
+     * @param clientConnection Połączenie z serwerem
+     */
     static void getAppProperties(ClientConnection clientConnection)
     {
-        clientConnection.writeAndRemember("GET Properties gameManager", null);
-        clientConnection.writeAndRemember("GET Properties tile", null);
-        clientConnection.writeAndRemember("GET Properties bomb", null);
-        clientConnection.writeAndRemember("GET Properties explosion", null);
-        clientConnection.writeAndRemember("GET Properties player", null);
-        clientConnection.writeAndRemember("GET Properties enemy", null);
-        clientConnection.writeAndRemember("GET Properties collectable", null);
-        clientConnection.flushBuffer();
+        clientConnection.requestBootstrap();
     }
 
     /**
@@ -277,26 +325,25 @@ public class Utils
     }
 
     /**
-     * Przeskalowuje obraz
-     * @param source Oryginalny obraz
-     * @param desiredWidth Żądana szerokość
-     * @param desiredHeight Żądana wysokość
-     * @return Przeskalowany obraz
+     * Generuje tablicę liczb losowych bez powtórzeń
+     * @param n Wielkość tablicy
+     * @param lim Górne ograniczenie przedziału losowania (dolne to 0)
+     * @return Tablica liczb losowych
      */
-    private static ImageIcon resizeImageIcon(ImageIcon source, int desiredWidth, int desiredHeight)
+    public static int[] noRepGen(int n, int lim)
     {
-        return new ImageIcon((source.getImage().getScaledInstance(desiredWidth, desiredHeight, Image.SCALE_SMOOTH)));
+        return noRepGen(n, lim, new Random());
     }
 
     /**
-     * Generuje tablicę liczb losowych bez powtórzeń
+     * Generuje tablicę liczb losowych bez powtórzeń, korzystając z podanego generatora
      * @param n Wielkość tablicy
      * @param lim Górne ograniczenie przedziału losowania (dolne to 0)
+     * @param random Generator liczb losowych
      * @return Tablica liczb losowych
      */
-    public static int[] noRepGen(int n, int lim)
+    public static int[] noRepGen(int n, int lim, Random random)
     {
-        Random random = new Random();
         int[] arr = new int[n];
         for (int i = 0; i < n; i++)
         {
@@ -329,7 +376,11 @@ public class Utils
     public static void drawCenteredString(Graphics g, String text, Vector v, Font font) {
         FontMetrics metrics = g.getFontMetrics(font);
         g.setFont(font);
-        g.drawString(text, (int)(v.x - metrics.stringWidth(text) / 2), (int)(v.y + metrics.getHeight() / 4));
+        int x = (int)(v.x - metrics.stringWidth(text) / 2), y = (int)(v.y + metrics.getHeight() / 4);
+        if(g instanceof Graphics2D)
+            FontRegistry.drawString((Graphics2D)g, text, x, y);
+        else
+            g.drawString(text, x, y);
     }
 
     /**
@@ -0,0 +1,44 @@
+package Common;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+
+/**
+ * Klasa reprezentująca odebraną wiadomość - kod operacji oraz strumień z danymi wiadomości.
+ * Dane nie są kopiowane - strumień czyta bezpośrednio z bufora, z którego odebrano ramkę
+ */
+public final class Message
+{
+    /**
+     * Kod operacji, jedna ze stałych klasy {@link Protocol}
+     */
+    public final byte opcode;
+
+    /**
+     * Strumień z danymi wiadomości (bez kodu operacji)
+     */
+    public final DataInputStream payload;
+
+    /**
+     * Konstruktor, przypisuje wartości zmiennym
+     * @param opcode Kod operacji
+     * @param payload Strumień z danymi wiadomości
+     */
+    private Message(byte opcode, DataInputStream payload)
+    {
+        this.opcode = opcode;
+        this.payload = payload;
+    }
+
+    /**
+     * Tworzy wiadomość na podstawie ciała ramki
+     * @param body Tablica zawierająca ciało ramki
+     * @param offset Początek ciała ramki w tablicy
+     * @param length Długość ciała ramki (co najmniej 1 - kod operacji)
+     * @return Wiadomość
+     */
+    public static Message decode(byte[] body, int offset, int length)
+    {
+        return new Message(body[offset], new DataInputStream(new ByteArrayInputStream(body, offset + 1, length - 1)));
+    }
+}
@@ -0,0 +1,525 @@
+package Common;
+
+import javafx.util.Pair;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Klasa opisująca binarny format wiadomości przesyłanych między klientem a serwerem.
+ * Każda wiadomość to ramka złożona z 4-bajtowej długości, jednobajtowego kodu operacji oraz danych,
+ * zapisanych jawnie dla każdego rodzaju wiadomości - bez serializacji obiektów Javy
+ */
+public final class Protocol
+{
+    /**
+     * Długość nagłówka ramki (liczba typu {@code int} z długością ciała ramki)
+     */
+    public static final int HEADER_LENGTH = 4;
+
+    /**
+     * Maksymalna dopuszczalna długość ciała ramki - chroni przed uszkodzonymi danymi
+     */
+    public static final int MAX_FRAME_LENGTH = 1 << 20;
+
+    /**
+     * Maksymalna liczba wyników w jednej odpowiedzi z tabelą - wraz z {@link #MAX_NAME_LENGTH} ogranicza rozmiar
+     * ramki niezależnie od liczby graczy w tabeli
+     */
+    public static final int MAX_LEADERBOARD_SIZE = 100;
+
+    /**
+     * Maksymalna długość imienia gracza zapisywanego w tabeli
+     */
+    public static final int MAX_NAME_LENGTH = 32;
+
+    /**
+     * Zapytanie o plik właściwości. Dane: nazwa pliku
+     */
+    public static final byte GET_PROPERTIES = 1;
+
+    /**
+     * Odpowiedź z plikiem właściwości. Dane: nazwa pliku, liczba par, pary klucz-wartość
+     */
+    public static final byte PROPERTIES = 2;
+
+    /**
+     * Zapytanie o poziom. Dane: numer poziomu
+     */
+    public static final byte GET_LEVEL = 3;
+
+    /**
+     * Odpowiedź z poziomem. Dane: numer poziomu, liczba linijek, linijki pliku poziomu
+     */
+    public static final byte LEVEL = 4;
+
+    /**
+     * Zapytanie o tabelę najlepszych wyników. Bez danych
+     */
+    public static final byte GET_LEADERBOARD = 5;
+
+    /**
+     * Odpowiedź z tabelą najlepszych wyników - co najwyżej {@link #MAX_LEADERBOARD_SIZE} pierwszych wyników.
+     * Dane: liczba wyników, pary imię-wynik
+     */
+    public static final byte LEADERBOARD = 6;
+
+    /**
+     * Zgłoszenie nowego wyniku. Dane: imię, wynik
+     */
+    public static final byte UPDATE_HIGHSCORE = 7;
+
+    /**
+     * Zapytanie startowe o całą konfigurację klienta. Dane: wersja posiadanej kopii (pusty napis, jeśli brak),
+     * flaga mówiąca, czy przesłać wszystkie poziomy, czy tylko pierwszy
+     */
+    public static final byte GET_BOOTSTRAP = 8;
+
+    /**
+     * Odpowiedź z całą konfiguracją klienta. Dane: wersja, liczba ramek, kolejne ramki {@link #PROPERTIES} i {@link #LEVEL}
+     */
+    public static final byte BOOTSTRAP = 9;
+
+    /**
+     * Odpowiedź na zapytanie startowe, gdy kopia klienta jest aktualna. Dane: wersja
+     */
+    public static final byte BOOTSTRAP_NOT_MODIFIED = 10;
+
+    /**
+     * Zapytanie o stronę tabeli najlepszych wyników. Dane: pozycja pierwszego wyniku (od 0), liczba wyników
+     * (co najwyżej {@link #MAX_LEADERBOARD_SIZE})
+     */
+    public static final byte GET_LEADERBOARD_PAGE = 11;
+
+    /**
+     * Odpowiedź ze stroną tabeli najlepszych wyników. Dane: pozycja pierwszego wyniku (od 0), liczba wszystkich
+     * wyników w tabeli, liczba wyników na stronie, pary imię-wynik
+     */
+    public static final byte LEADERBOARD_PAGE = 12;
+
+    /**
+     * Zapytanie o pozycję gracza w tabeli. Dane: imię
+     */
+    public static final byte GET_RANK = 13;
+
+    /**
+     * Odpowiedź z pozycją gracza. Dane: imię, pozycja najlepszego wyniku (od 1, 0 jeśli gracza nie ma w tabeli),
+     * najlepszy wynik, liczba wszystkich wyników w tabeli
+     */
+    public static final byte RANK = 14;
+
+    /**
+     * Zapytanie o wyniki z przedziału. Dane: najmniejszy wynik, największy wynik, maksymalna liczba wyników.
+     * Odpowiedzią jest {@link #LEADERBOARD_PAGE}
+     */
+    public static final byte GET_SCORE_RANGE = 15;
+
+    /**
+     * Nazwy plików właściwości przesyłanych w odpowiedzi {@link #BOOTSTRAP}
+     */
+    public static final List<String> BOOTSTRAP_PROPERTIES = Collections.unmodifiableList(Arrays.asList(
+            "gameManager", "tile", "bomb", "explosion", "player", "enemy", "collectable"));
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private Protocol() {}
+
+    /**
+     * Interfejs funkcyjny zapisujący dane wiadomości do strumienia
+     */
+    private interface PayloadWriter
+    {
+        /**
+         * Zapisuje dane wiadomości
+         * @param out Strumień, do którego zapisywane są dane
+         * @throws IOException Wyrzucany przy błędzie zapisu
+         */
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Tworzy kompletną ramkę - rezerwuje miejsce na długość, zapisuje kod operacji i dane, po czym uzupełnia długość
+     * @param opcode Kod operacji
+     * @param payloadWriter Funkcja zapisująca dane wiadomości
+     * @return Ramka gotowa do zapisania w gniazdku
+     */
+    private static byte[] frame(byte opcode, PayloadWriter payloadWriter)
+    {
+        try {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(frame);
+            out.writeInt(0);
+            out.writeByte(opcode);
+            payloadWriter.write(out);
+            out.flush();
+
+            byte[] bytes = frame.toByteArray();
+            int length = bytes.length - HEADER_LENGTH;
+            bytes[0] = (byte)(length >>> 24);
+            bytes[1] = (byte)(length >>> 16);
+            bytes[2] = (byte)(length >>> 8);
+            bytes[3] = (byte)length;
+            return bytes;
+        } catch (IOException e) {
+            //zapis do tablicy w pamięci nie powoduje błędów wejścia/wyjścia
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Koduje zapytanie o plik właściwości
+     * @param name Nazwa pliku właściwości (bez rozszerzenia)
+     * @return Ramka zapytania
+     */
+    public static byte[] encodeGetProperties(String name)
+    {
+        return frame(GET_PROPERTIES, out -> out.writeUTF(name));
+    }
+
+    /**
+     * Koduje odpowiedź z plikiem właściwości
+     * @param name Nazwa pliku właściwości (bez rozszerzenia)
+     * @param properties Właściwości
+     * @return Ramka odpowiedzi
+     */
+    public static byte[] encodeProperties(String name, Properties properties)
+    {
+        return frame(PROPERTIES, out -> {
+            out.writeUTF(name);
+            writeProperties(out, properties);
+        });
+    }
+
+    /**
+     * Koduje zapytanie o poziom
+     * @param levelIndex Numer poziomu
+     * @return Ramka zapytania
+     */
+    public static byte[] encodeGetLevel(int levelIndex)
+    {
+        return frame(GET_LEVEL, out -> out.writeInt(levelIndex));
+    }
+
+    /**
+     * Koduje odpowiedź z poziomem
+     * @param levelIndex Numer poziomu
+     * @param lines Linijki pliku poziomu
+     * @return Ramka odpowiedzi
+     */
+    public static byte[] encodeLevel(int levelIndex, List<String> lines)
+    {
+        return frame(LEVEL, out -> {
+            out.writeInt(levelIndex);
+            writeLines(out, lines);
+        });
+    }
+
+    /**
+     * Koduje zapytanie o tabelę najlepszych wyników
+     * @return Ramka zapytania
+     */
+    public static byte[] encodeGetLeaderboard()
+    {
+        return frame(GET_LEADERBOARD, out -> {});
+    }
+
+    /**
+     * Koduje odpowiedź z tabelą najlepszych wyników
+     * @param scores Lista par imię-wynik, posortowana malejąco
+     * @return Ramka odpowiedzi
+     */
+    public static byte[] encodeLeaderboard(List<Pair<String, Integer>> scores)
+    {
+        return frame(LEADERBOARD, out -> writeScores(out, scores));
+    }
+
+    /**
+     * Koduje zapytanie o stronę tabeli najlepszych wyników
+     * @param offset Pozycja pierwszego wyniku, licząc od 0
+     * @param limit Maksymalna liczba wyników
+     * @return Ramka zapytania
+     */
+    public static byte[] encodeGetLeaderboardPage(int offset, int limit)
+    {
+        return frame(GET_LEADERBOARD_PAGE, out -> {
+            out.writeInt(offset);
+            out.writeInt(limit);
+        });
+    }
+
+    /**
+     * Koduje odpowiedź ze stroną tabeli najlepszych wyników
+     * @param offset Pozycja pierwszego wyniku na stronie, licząc od 0
+     * @param total Liczba wszystkich wyników w tabeli
+     * @param scores Lista par imię-wynik, posortowana malejąco
+     * @return Ramka odpowiedzi
+     */
+    public static byte[] encodeLeaderboardPage(int offset, int total, List<Pair<String, Integer>> scores)
+    {
+        return frame(LEADERBOARD_PAGE, out -> {
+            out.writeInt(offset);
+            out.writeInt(total);
+            writeScores(out, scores);
+        });
+    }
+
+    /**
+     * Koduje zapytanie o pozycję gracza w tabeli
+     * @param name Imię gracza
+     * @return Ramka zapytania
+     */
+    public static byte[] encodeGetRank(String name)
+    {
+        return frame(GET_RANK, out -> out.writeUTF(name));
+    }
+
+    /**
+     * Koduje odpowiedź z pozycją gracza w tabeli
+     * @param name Imię gracza
+     * @param rank Pozycja najlepszego wyniku gracza, licząc od 1, lub 0, jeśli gracza nie ma w tabeli
+     * @param score Najlepszy wynik gracza
+     * @param total Liczba wszystkich wyników w tabeli
+     * @return Ramka odpowiedzi
+     */
+    public static byte[] encodeRank(String name, int rank, int score, int total)
+    {
+        return frame(RANK, out -> {
+            out.writeUTF(name);
+            out.writeInt(rank);
+            out.writeInt(score);
+            out.writeInt(total);
+        });
+    }
+
+    /**
+     * Koduje zapytanie o wyniki z przedziału
+     * @param minScore Najmniejszy wynik (włącznie)
+     * @param maxScore Największy wynik (włącznie)
+     * @param limit Maksymalna liczba wyników
+     * @return Ramka zapytania
+     */
+    public static byte[] encodeGetScoreRange(int minScore, int maxScore, int limit)
+    {
+        return frame(GET_SCORE_RANGE, out -> {
+            out.writeInt(minScore);
+            out.writeInt(maxScore);
+            out.writeInt(limit);
+        });
+    }
+
+    /**
+     * Koduje zgłoszenie nowego wyniku
+     * @param name Imię gracza
+     * @param score Wynik gracza
+     * @return Ramka zgłoszenia
+     */
+    public static byte[] encodeHighscore(String name, int score)
+    {
+        return frame(UPDATE_HIGHSCORE, out -> {
+            out.writeUTF(name);
+            out.writeInt(score);
+        });
+    }
+
+    /**
+     * Koduje zapytanie startowe
+     * @param version Wersja konfiguracji posiadanej przez klienta lub pusty napis
+     * @param allLevels Czy przesłać wszystkie poziomy, czy tylko pierwszy
+     * @return Ramka zapytania
+     */
+    public static byte[] encodeGetBootstrap(String version, boolean allLevels)
+    {
+        return frame(GET_BOOTSTRAP, out -> {
+            out.writeUTF(version);
+            out.writeBoolean(allLevels);
+        });
+    }
+
+    /**
+     * Koduje odpowiedź z całą konfiguracją klienta. Ramki składowe są kopiowane bez zmian
+     * @param version Wersja konfiguracji
+     * @param frames Zakodowane ramki {@link #PROPERTIES} i {@link #LEVEL}
+     * @return Ramka odpowiedzi
+     */
+    public static byte[] encodeBootstrap(String version, List<byte[]> frames)
+    {
+        return frame(BOOTSTRAP, out -> {
+            out.writeUTF(version);
+            out.writeInt(frames.size());
+            for(byte[] frame : frames)
+                out.write(frame);
+        });
+    }
+
+    /**
+     * Koduje odpowiedź informującą, że konfiguracja klienta jest aktualna
+     * @param version Wersja konfiguracji
+     * @return Ramka odpowiedzi
+     */
+    public static byte[] encodeBootstrapNotModified(String version)
+    {
+        return frame(BOOTSTRAP_NOT_MODIFIED, out -> out.writeUTF(version));
+    }
+
+    /**
+     * Zapisuje właściwości jako liczbę par, a następnie kolejne pary klucz-wartość
+     * @param out Strumień wyjściowy
+     * @param properties Właściwości
+     * @throws IOException Wyrzucany przy błędzie zapisu
+     */
+    public static void writeProperties(DataOutputStream out, Properties properties) throws IOException
+    {
+        out.writeInt(properties.size());
+        for(String key : properties.stringPropertyNames())
+        {
+            out.writeUTF(key);
+            out.writeUTF(properties.getProperty(key));
+        }
+    }
+
+    /**
+     * Odczytuje właściwości zapisane przez {@link #writeProperties(DataOutputStream, Properties)}
+     * @param in Strumień wejściowy
+     * @return Właściwości
+     * @throws IOException Wyrzucany przy uszkodzonych danych
+     */
+    public static Properties readProperties(DataInputStream in) throws IOException
+    {
+        Properties properties = new Properties();
+        int count = in.readInt();
+        for(int i = 0; i < count; i++)
+            properties.setProperty(in.readUTF(), in.readUTF());
+        return properties;
+    }
+
+    /**
+     * Zapisuje listę linijek tekstu jako ich liczbę, a następnie kolejne linijki
+     * @param out Strumień wyjściowy
+     * @param lines Linijki tekstu
+     * @throws IOException Wyrzucany przy błędzie zapisu
+     */
+    public static void writeLines(DataOutputStream out, List<String> lines) throws IOException
+    {
+        out.writeInt(lines.size());
+        for(String line : lines)
+            out.writeUTF(line);
+    }
+
+    /**
+     * Odczytuje listę linijek zapisaną przez {@link #writeLines(DataOutputStream, List)}
+     * @param in Strumień wejściowy
+     * @return Lista linijek
+     * @throws IOException Wyrzucany przy uszkodzonych danych
+     */
+    public static ArrayList<String> readLines(DataInputStream in) throws IOException
+    {
+        int count = in.readInt();
+        ArrayList<String> lines = new ArrayList<>(count);
+        for(int i = 0; i < count; i++)
+            lines.add(in.readUTF());
+        return lines;
+    }
+
+    /**
+     * Zapisuje listę wyników jako ich liczbę, a następnie kolejne pary imię-wynik
+     * @param out Strumień wyjściowy
+     * @param scores Lista par imię-wynik
+     * @throws IOException Wyrzucany przy błędzie zapisu
+     */
+    private static void writeScores(DataOutputStream out, List<Pair<String, Integer>> scores) throws IOException
+    {
+        out.writeInt(scores.size());
+        for(Pair<String, Integer> score : scores)
+        {
+            out.writeUTF(score.getKey());
+            out.writeInt(score.getValue());
+        }
+    }
+
+    /**
+     * Odczytuje tabelę wyników zapisaną przez {@link #encodeLeaderboard(List)} lub, po odczytaniu pozycji i liczby
+     * wszystkich wyników, przez {@link #encodeLeaderboardPage(int, int, List)}
+     * @param in Strumień wejściowy
+     * @return Lista par imię-wynik
+     * @throws IOException Wyrzucany przy uszkodzonych danych
+     */
+    public static ArrayList<Pair<String, String>> readScores(DataInputStream in) throws IOException
+    {
+        int count = in.readInt();
+        ArrayList<Pair<String, String>> scores = new ArrayList<>(count);
+        for(int i = 0; i < count; i++)
+            scores.add(new Pair<>(in.readUTF(), String.valueOf(in.readInt())));
+        return scores;
+    }
+
+    /**
+     * Odczytuje ramki składowe odpowiedzi {@link #BOOTSTRAP}, zapisane przez {@link #encodeBootstrap(String, List)}
+     * @param in Strumień wejściowy, ustawiony za wersją konfiguracji
+     * @return Lista wiadomości składowych
+     * @throws IOException Wyrzucany przy uszkodzonych danych
+     */
+    public static ArrayList<Message> readFrames(DataInputStream in) throws IOException
+    {
+        int count = in.readInt();
+        ArrayList<Message> messages = new ArrayList<>(count);
+        for(int i = 0; i < count; i++)
+            messages.add(readFrame(in));
+        return messages;
+    }
+
+    /**
+     * Wylicza wersję konfiguracji przesyłanej w odpowiedzi {@link #BOOTSTRAP} - skrót SHA-256 kolejnych ramek składowych.
+     * Ramki mogą być podane osobno lub jako jedna sklejona tablica - wynik jest taki sam
+     * @param parts Ramki składowe
+     * @return Skrót zapisany szesnastkowo
+     */
+    public static String contentVersion(List<byte[]> parts)
+    {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for(byte[] part : parts)
+                digest.update(part);
+            StringBuilder version = new StringBuilder();
+            for(byte b : digest.digest())
+                version.append(String.format("%02x", b));
+            return version.toString();
+        } catch (NoSuchAlgorithmException e) {
+            //SHA-256 jest dostępny w każdej maszynie wirtualnej
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Odczytuje ze strumienia jedną ramkę. Blokuje do czasu odebrania całej ramki
+     * @param inputStream Strumień wejściowy gniazdka
+     * @return Odebrana wiadomość
+     * @throws EOFException Wyrzucany, gdy druga strona zamknęła połączenie
+     * @throws IOException Wyrzucany przy błędzie odczytu lub nieprawidłowej długości ramki
+     */
+    public static Message readFrame(DataInputStream inputStream) throws IOException
+    {
+        int length = inputStream.readInt();
+        checkLength(length);
+        byte[] body = new byte[length];
+        inputStream.readFully(body);
+        return Message.decode(body, 0, length);
+    }
+
+    /**
+     * Sprawdza, czy długość odczytana z nagłówka ramki jest prawidłowa
+     * @param length Długość ciała ramki
+     * @throws IOException Wyrzucany, gdy długość jest spoza dopuszczalnego przedziału
+     */
+    public static void checkLength(int length) throws IOException
+    {
+        if(length < 1 || length > MAX_FRAME_LENGTH)
+            throw new IOException("Invalid frame length: " + length);
+    }
+}
@@ -0,0 +1,124 @@
+package Server;
+
+import Common.Protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Klasa składająca odpowiedź {@link Protocol#BOOTSTRAP} z ramek przechowywanych przez {@link PropertiesRepository}
+ * i {@link LevelRepository}. Gotowa odpowiedź jest zapamiętywana i budowana od nowa tylko wtedy, gdy
+ * któraś z ramek składowych została podmieniona po zmianie pliku na dysku
+ */
+class BootstrapRepository
+{
+    /**
+     * Klasa reprezentująca zbudowaną odpowiedź wraz z ramkami, z których powstała
+     */
+    private static final class Snapshot
+    {
+        /**
+         * Ramki składowe - porównywane przez referencję, bo repozytoria podmieniają tablice przy każdej zmianie
+         */
+        final List<byte[]> parts;
+
+        /**
+         * Wersja konfiguracji - skrót SHA-256 ramek składowych
+         */
+        final String version;
+
+        /**
+         * Ramka {@link Protocol#BOOTSTRAP}
+         */
+        final byte[] frame;
+
+        /**
+         * Ramka {@link Protocol#BOOTSTRAP_NOT_MODIFIED}
+         */
+        final byte[] notModifiedFrame;
+
+        /**
+         * Konstruktor, wylicza wersję i koduje obie ramki
+         * @param parts Ramki składowe
+         */
+        Snapshot(List<byte[]> parts)
+        {
+            this.parts = parts;
+            this.version = Protocol.contentVersion(parts);
+            this.frame = Protocol.encodeBootstrap(version, parts);
+            this.notModifiedFrame = Protocol.encodeBootstrapNotModified(version);
+        }
+    }
+
+    /**
+     * Ostatnia odpowiedź zawierająca tylko pierwszy poziom
+     */
+    private static volatile Snapshot firstLevelSnapshot;
+
+    /**
+     * Ostatnia odpowiedź zawierająca wszystkie poziomy
+     */
+    private static volatile Snapshot allLevelsSnapshot;
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private BootstrapRepository() {}
+
+    /**
+     * Zwraca odpowiedź na zapytanie startowe
+     * @param clientVersion Wersja konfiguracji posiadanej przez klienta
+     * @param allLevels Czy przesłać wszystkie poziomy, czy tylko pierwszy
+     * @return Ramka {@link Protocol#BOOTSTRAP_NOT_MODIFIED}, jeśli wersja klienta jest aktualna, w przeciwnym razie {@link Protocol#BOOTSTRAP}
+     */
+    static byte[] getBootstrapFrame(String clientVersion, boolean allLevels)
+    {
+        List<byte[]> parts = collectParts(allLevels);
+        Snapshot snapshot = allLevels ? allLevelsSnapshot : firstLevelSnapshot;
+        if(snapshot == null || !sameParts(snapshot.parts, parts)) {
+            snapshot = new Snapshot(parts);
+            if(allLevels)
+                allLevelsSnapshot = snapshot;
+            else
+                firstLevelSnapshot = snapshot;
+        }
+        return snapshot.version.equals(clientVersion) ? snapshot.notModifiedFrame : snapshot.frame;
+    }
+
+    /**
+     * Zbiera aktualne ramki plików właściwości i poziomów
+     * @param allLevels Czy zebrać wszystkie poziomy, czy tylko pierwszy
+     * @return Lista ramek składowych
+     */
+    private static List<byte[]> collectParts(boolean allLevels)
+    {
+        List<byte[]> parts = new ArrayList<>();
+        for(String name : Protocol.BOOTSTRAP_PROPERTIES)
+            parts.add(PropertiesRepository.getPropertiesFrame(name));
+
+        int levelIndex = 1;
+        byte[] levelFrame;
+        while((levelFrame = LevelRepository.getLevelFrame(levelIndex++)) != null) {
+            parts.add(levelFrame);
+            if(!allLevels)
+                break;
+        }
+        return parts;
+    }
+
+    /**
+     * Sprawdza, czy dwie listy składają się z tych samych tablic
+     * @param a Pierwsza lista
+     * @param b Druga lista
+     * @return {@code true}, jeśli listy zawierają te same tablice w tej samej kolejności
+     */
+    private static boolean sameParts(List<byte[]> a, List<byte[]> b)
+    {
+        if(a.size() != b.size())
+            return false;
+        for(int i = 0; i < a.size(); i++)
+            if(a.get(i) != b.get(i))
+                return false;
+        return true;
+    }
+}
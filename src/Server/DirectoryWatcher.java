@@ -0,0 +1,114 @@
+package Server;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.sql.Timestamp;
+
+/**
+ * Klasa obserwująca katalog z danymi serwera w osobnym wątku i powiadamiająca słuchacza
+ * o każdym dodanym, zmienionym lub usuniętym pliku
+ */
+class DirectoryWatcher
+{
+    /**
+     * Interfejs słuchacza powiadamianego o zmianach plików
+     */
+    interface Listener
+    {
+        /**
+         * Wywoływana w wątku obserwującym po zmianie pliku
+         * @param fileName Nazwa zmienionego pliku lub {@code null}, jeśli zdarzenia zostały utracone
+         *                 i każdy plik w katalogu mógł się zmienić
+         */
+        void fileChanged(Path fileName);
+    }
+
+    /**
+     * Nazwa wątku obserwującego
+     */
+    private final String name;
+
+    /**
+     * Obserwowany katalog
+     */
+    private final Path directory;
+
+    /**
+     * Słuchacz powiadamiany o zmianach
+     */
+    private final Listener listener;
+
+    /**
+     * Wątek obserwujący katalog, {@code null} jeśli obserwowanie jest wyłączone
+     */
+    private Thread watcherThread;
+
+    /**
+     * Konstruktor, przypisuje wartości zmiennym
+     * @param name Nazwa wątku obserwującego
+     * @param directory Obserwowany katalog
+     * @param listener Słuchacz powiadamiany o zmianach
+     */
+    DirectoryWatcher(String name, Path directory, Listener listener)
+    {
+        this.name = name;
+        this.directory = directory;
+        this.listener = listener;
+    }
+
+    /**
+     * Uruchamia wątek obserwujący katalog. Kolejne wywołania nic nie robią
+     */
+    synchronized void start()
+    {
+        if(watcherThread != null)
+            return;
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watcherThread = new Thread(() -> watch(watchService), name);
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+        } catch (IOException e) {
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Directory " + directory + " cannot be watched, cache will not be refreshed");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Zatrzymuje wątek obserwujący katalog
+     */
+    synchronized void stop()
+    {
+        if(watcherThread != null) {
+            watcherThread.interrupt();
+            watcherThread = null;
+        }
+    }
+
+    /**
+     * Pętla wątku obserwującego - przekazuje zdarzenia do słuchacza
+     * @param watchService Serwis obserwujący katalog
+     */
+    private void watch(WatchService watchService)
+    {
+        try (WatchService service = watchService) {
+            while(!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                for(WatchEvent<?> event : key.pollEvents()) {
+                    if(event.kind() == StandardWatchEventKinds.OVERFLOW)
+                        listener.fileChanged(null);
+                    else
+                        listener.fileChanged((Path)event.context());
+                }
+                if(!key.reset())
+                    break;
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //zatrzymanie obserwowania
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package Server;
+
+import Common.Protocol;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Klasa przechowująca poziomy w pamięci jako gotowe ramki odpowiedzi {@link Protocol#LEVEL}.
+ * Plik poziomu jest czytany z dysku tylko przy pierwszym zapytaniu - kolejne zapytania dostają
+ * tę samą, zakodowaną już ramkę. Zapamiętywany jest też brak pliku - pierwszy brakujący poziom kończy
+ * listę poziomów przy każdym zapytaniu {@link Protocol#GET_BOOTSTRAP} - ale tylko dla ograniczonej liczby
+ * numerów, więc zapytania o dowolne numery nie powiększają pamięci bez końca. Wątek obserwujący katalog
+ * z poziomami usuwa z pamięci poziomy, których pliki zostały zmienione, dodane lub usunięte
+ */
+class LevelRepository
+{
+    /**
+     * Katalog z plikami poziomów
+     */
+    private static final Path LEVELS_DIRECTORY = Paths.get("./data/server/levels");
+
+    /**
+     * Zakodowane ramki poziomów, kluczem jest numer poziomu. Tablice nie są modyfikowane po umieszczeniu w mapie,
+     * więc mogą być przekazywane wielu połączeniom jednocześnie
+     */
+    private static final Map<Integer, byte[]> levelFrames = new ConcurrentHashMap<>();
+
+    /**
+     * Znacznik zapamiętanego braku pliku poziomu - usuwany z pamięci, gdy plik zostanie utworzony
+     */
+    private static final byte[] MISSING_LEVEL = new byte[0];
+
+    /**
+     * Największa liczba zapamiętanych braków plików - kolejne braki sprawdzane są na dysku przy każdym zapytaniu
+     */
+    private static final int MAX_MISSING_LEVELS = 16;
+
+    /**
+     * Liczba znaczników {@link #MISSING_LEVEL} w pamięci poziomów
+     */
+    private static final AtomicInteger missingLevels = new AtomicInteger();
+
+    /**
+     * Obiekt obserwujący katalog {@link #LEVELS_DIRECTORY}
+     */
+    private static final DirectoryWatcher watcher = new DirectoryWatcher("level-watcher", LEVELS_DIRECTORY, LevelRepository::levelFileChanged);
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private LevelRepository() {}
+
+    /**
+     * Zwraca ramkę z danym poziomem, w razie potrzeby wczytując go z dysku
+     * @param levelIndex Numer poziomu
+     * @return Zakodowana ramka odpowiedzi lub {@code null}, jeśli poziom nie istnieje
+     */
+    static byte[] getLevelFrame(int levelIndex)
+    {
+        if(levelIndex < 1)
+            return null;
+        byte[] levelFrame = levelFrames.computeIfAbsent(levelIndex, LevelRepository::loadLevelFrame);
+        return levelFrame != MISSING_LEVEL ? levelFrame : null;
+    }
+
+    /**
+     * Wczytuje plik poziomu i koduje go jako ramkę odpowiedzi
+     * @param levelIndex Numer poziomu
+     * @return Zakodowana ramka odpowiedzi, {@link #MISSING_LEVEL}, jeśli plik nie istnieje, lub {@code null},
+     * jeśli plik nie istnieje, a limit {@link #MAX_MISSING_LEVELS} został wyczerpany - wtedy nic nie trafia do pamięci
+     */
+    private static byte[] loadLevelFrame(int levelIndex)
+    {
+        ArrayList<String> lines = new ArrayList<>();
+        try (Scanner mapScanner = new Scanner(new File(LEVELS_DIRECTORY.toFile(), levelIndex + ".txt"))) {
+            while(mapScanner.hasNextLine())
+                lines.add(mapScanner.nextLine());
+        } catch (FileNotFoundException e) {
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + "Desired level not found!");
+            if(missingLevels.incrementAndGet() > MAX_MISSING_LEVELS) {
+                missingLevels.decrementAndGet();
+                return null;
+            }
+            return MISSING_LEVEL;
+        }
+        System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + "Level " + levelIndex + " loaded into cache");
+        return Protocol.encodeLevel(levelIndex, lines);
+    }
+
+    /**
+     * Uruchamia wątek obserwujący katalog z poziomami. Kolejne wywołania nic nie robią
+     */
+    static void startWatching()
+    {
+        watcher.start();
+    }
+
+    /**
+     * Zatrzymuje wątek obserwujący katalog z poziomami i czyści pamięć poziomów
+     */
+    static void stopWatching()
+    {
+        watcher.stop();
+        invalidateAll();
+    }
+
+    /**
+     * Usuwa z pamięci poziom, którego plik się zmienił. Przy utracie zdarzeń czyszczona jest cała pamięć
+     * @param fileName Nazwa zmienionego pliku lub {@code null} przy utracie zdarzeń
+     */
+    private static void levelFileChanged(Path fileName)
+    {
+        if(fileName == null) {
+            invalidateAll();
+            return;
+        }
+        Integer levelIndex = parseLevelIndex(fileName);
+        if(levelIndex != null && invalidate(levelIndex))
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Level " + levelIndex + " changed, cache invalidated");
+    }
+
+    /**
+     * Usuwa poziom z pamięci, zmniejszając licznik {@link #missingLevels}, jeśli był to zapamiętany brak pliku
+     * @param levelIndex Numer poziomu
+     * @return {@code true}, jeśli poziom był w pamięci
+     */
+    private static boolean invalidate(Integer levelIndex)
+    {
+        byte[] removed = levelFrames.remove(levelIndex);
+        if(removed == MISSING_LEVEL)
+            missingLevels.decrementAndGet();
+        return removed != null;
+    }
+
+    /**
+     * Usuwa z pamięci wszystkie poziomy
+     */
+    private static void invalidateAll()
+    {
+        for(Integer levelIndex : levelFrames.keySet())
+            invalidate(levelIndex);
+    }
+
+    /**
+     * Odczytuje numer poziomu z nazwy pliku
+     * @param fileName Nazwa pliku, np. {@code 3.txt}
+     * @return Numer poziomu lub {@code null}, jeśli plik nie jest plikiem poziomu
+     */
+    private static Integer parseLevelIndex(Path fileName)
+    {
+        String name = fileName.toString();
+        if(!name.endsWith(".txt"))
+            return null;
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - ".txt".length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -2,24 +2,28 @@ package Server;
 
 
 import Server.ServerUI.ServerUI;
-import javafx.util.Pair;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Klasa odpowiadająca za działanie serwera i zarządanie połączeniami po stronie serwera
  */
 public class Main
 {
+    /**
+     * Typ wyliczeniowy określający sposób obsługi połączeń klientów:
+     * THREADS - osobny wątek dla każdego połączenia, VIRTUAL - osobny wątek wirtualny dla każdego połączenia,
+     * NIO - selektory i stała pula wątków wejścia/wyjścia
+     */
+    enum ServerMode {THREADS, VIRTUAL, NIO}
+
     /**
      * Instancja tej klasy
      */
@@ -36,27 +40,39 @@ public class Main
     private static ServerSocket serverSocket;
 
     /**
-     * Mówi, czy serwer obecnie działa
+     * Maksymalna długość kolejki połączeń oczekujących na akceptację
      */
-    private static boolean running;
+    private static final int BACKLOG = 1024;
 
     /**
-     * Lista połączeń serwerowych
+     * Egzekutor uruchamiający połączenia w trybie {@link ServerMode#VIRTUAL}
      */
-    private static final ArrayList<ServerConnection> connections = new ArrayList<>();
+    private static ExecutorService connectionExecutor;
 
     /**
-     * Lista zapytań o dodanie wyniku do tabeli
+     * Serwer nieblokujący, używany w trybie {@link ServerMode#NIO}
      */
-    private static final LinkedList<Pair<String,String>> scoreQueries = new LinkedList<>();
+    private static NioServer nioServer;
 
     /**
-     * Getter zmiennej {@link #scoreQueries}
-     * @return Zmienna {@link #scoreQueries}
+     * Wybrany sposób obsługi połączeń, ustalany argumentem {@code --mode=threads|virtual|nio}
      */
-    static LinkedList<Pair<String, String>> getScoreQueries() {
-        return scoreQueries;
-    }
+    private static ServerMode serverMode = ServerMode.NIO;
+
+    /**
+     * Liczba wątków wejścia/wyjścia w trybie {@link ServerMode#NIO}, ustalana argumentem {@code --io-threads=N}
+     */
+    private static int ioThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Mówi, czy serwer obecnie działa
+     */
+    private static boolean running;
+
+    /**
+     * Zbiór połączeń serwerowych - współbieżny, bo połączenia usuwają się z niego same po zakończeniu
+     */
+    private static final Set<ServerConnection> connections = ConcurrentHashMap.newKeySet();
 
     /**
      * Konstruktor pojawiający okno interfejsu
@@ -66,7 +82,8 @@ public class Main
     }
 
     /**
-     * Akceptuje połączenia użytkowników w pętli do czasu zamknięcia serwera
+     * Akceptuje połączenia użytkowników w pętli do czasu zamknięcia serwera. Każde połączenie
+     * dostaje własny wątek - wirtualny, jeśli ustawiony jest {@link #connectionExecutor}
      * @throws IOException Wyrzucany przy zamknięciu {@link #serverSocket}
      */
     private static void acceptClients() throws IOException
@@ -76,171 +93,120 @@ public class Main
             Socket clientSocket = serverSocket.accept();
             ServerConnection serverConnection = new ServerConnection(clientSocket);
             connections.add(serverConnection);
-            new Thread(serverConnection).start();
+            if(connectionExecutor != null)
+                connectionExecutor.execute(serverConnection);
+            else
+                new Thread(serverConnection).start();
             System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Client #" + index++ + " has connected");
         }
     }
 
     /**
-     * Tworzy instancję tej klasy oraz tworzy nowy wątek obsługujący kolejkę oczekujących zapytań - {@link #scoreQueries}
-     * @param args Parametry wejściowe programu
+     * Usuwa zakończone połączenie ze zbioru {@link #connections}
+     * @param serverConnection Zakończone połączenie
      */
-    public static void main(String[] args) {
-        instance = new Main();
-        new Thread(Main::handleScoreQueries).start();
+    static void removeConnection(ServerConnection serverConnection) {
+        connections.remove(serverConnection);
     }
 
     /**
-     * Uruchamia gniazdko serwerowe oraz wywołuje {@link #acceptClients()}
-     * @param portNumber Numer portu serwera
+     * Tworzy egzekutor uruchamiający każde zadanie w nowym wątku wirtualnym. Wątki wirtualne są dostępne
+     * od Javy 21, dlatego metoda wywoływana jest refleksyjnie - na starszej maszynie wirtualnej
+     * zwracana jest pula zwykłych wątków
+     * @return Egzekutor dla połączeń klientów
      */
-    public static void runServer(String portNumber){
-        try
-        {
-            running = true;
-            serverSocket = new ServerSocket(Integer.parseInt(portNumber));
-            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Server running...");
-            acceptClients();
-        } catch (IOException e) {
-            e.printStackTrace();
-            running = false;
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Virtual threads unavailable (Java 21+ required), using a cached thread pool");
+            return Executors.newCachedThreadPool();
         }
     }
 
     /**
-     * Zamyka wszystkie połączenia serwerowe a potem zamyka gniazdko serwerowe
+     * Odczytuje tryb pracy serwera z argumentów, tworzy instancję tej klasy oraz uruchamia wątki
+     * zapisujące zgłoszone wyniki - {@link ScoreWriter}
+     * @param args Parametry wejściowe programu
      */
-    public static void closeConnections(){
-        for(int i = connections.size()-1; i > -1 ;i--){
-            try {
-                connections.get(i).getSocket().close();
-                connections.remove(i);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        try {
-            if(running) {
-                serverSocket.close();
-                running = false;
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public static void main(String[] args) {
+        parseArguments(args);
+        instance = new Main();
+        ScoreWriter.start();
     }
 
     /**
-     * Zarządza listą zapytań o dodanie wyniku do tabeli. Sprawdza, czy dany wynik można wpisać do tabeli,
-     * po czym usuwa go z listy. Działą w pętli, do póki lista nie będzie pusta
+     * Odczytuje z argumentów programu tryb pracy serwera oraz liczbę wątków wejścia/wyjścia
+     * @param args Parametry wejściowe programu
      */
-    private static void handleScoreQueries(){
-        while(true){
-            synchronized(scoreQueries){
-                if (scoreQueries.size() > 0){
-                    Pair<String,String> currentPair = scoreQueries.pollLast();
-                    ArrayList<Pair<String,String>> serverScores = loadScoresFromServerFile();
-
-                    assert serverScores != null;
-                    serverScores = sortScores(serverScores, currentPair);
-                    saveScoresOnServer(serverScores);
-                    System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + "Highscore recived");
-                }
-                else{
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
+    private static void parseArguments(String[] args){
+        for(String arg : args){
             try {
-                Thread.sleep(25);
-            }
-            catch (InterruptedException e){
-                e.printStackTrace();
+                if(arg.startsWith("--mode="))
+                    serverMode = ServerMode.valueOf(arg.substring("--mode=".length()).toUpperCase());
+                else if(arg.startsWith("--io-threads="))
+                    ioThreads = Math.max(1, Integer.parseInt(arg.substring("--io-threads=".length())));
+            } catch (IllegalArgumentException e) {
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Nieprawidlowy argument: " + arg);
             }
         }
-
+        System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Server mode: " + serverMode);
     }
 
     /**
-     * Ładuje tabelę najlepszych wyników z pilku
-     * @return Tabela najlepszych wyników
+     * Uruchamia serwer w wybranym trybie - gniazdko serwerowe wraz z {@link #acceptClients()}
+     * lub serwer nieblokujący {@link NioServer}
+     * @param portNumber Numer portu serwera
      */
-    private static ArrayList<Pair<String,String>> loadScoresFromServerFile(){
-
-        try {
-            ArrayList<Pair<String,String>> scores = new ArrayList<>();
-            Scanner scanner = new Scanner(new File("./data/server/highScores/highScores.txt"));
-
-            String[] results;
-            while(scanner.hasNextLine()){
-                results = scanner.nextLine().split(" ");
-                scores.add(new Pair<>(results[0],results[1]));
+    public static void runServer(String portNumber){
+        try
+        {
+            running = true;
+            LevelRepository.startWatching();
+            PropertiesRepository.startWatching();
+            if(serverMode == ServerMode.NIO) {
+                nioServer = new NioServer(Integer.parseInt(portNumber), ioThreads);
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Server running with " + ioThreads + " I/O threads...");
+                nioServer.run();
+                return;
             }
-            return scores;
-        }
-        catch (FileNotFoundException e){
+            if(serverMode == ServerMode.VIRTUAL)
+                connectionExecutor = createVirtualThreadExecutor();
+            serverSocket = new ServerSocket(Integer.parseInt(portNumber), BACKLOG);
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Server running...");
+            acceptClients();
+        } catch (IOException e) {
             e.printStackTrace();
+            running = false;
         }
-        return null;
     }
 
     /**
-     * Wstawia wynik w odpowiednie miejsce do tabeli tak, żeby zachować kolejność malejącą
-     * @param scoreList Tablica wyników
-     * @param pair Para - imię, wynik - do wstawienia do tabeli
-     * @return Zmodyfikowana tabela
+     * Zamyka wszystkie połączenia serwerowe a potem zamyka gniazdko serwerowe
      */
-    private static ArrayList<Pair<String,String>> sortScores(ArrayList<Pair<String,String>> scoreList,Pair<String,String> pair){
-        ArrayList<Pair<String,String>> sorted = new ArrayList<>();
-        boolean added = false;
-
-        for (Pair<String,String> currentPair: scoreList){
-            if (Integer.parseInt(currentPair.getValue()) >= Integer.parseInt(pair.getValue())){
-                sorted.add(currentPair);
-            }
-            else if(!added){
-                sorted.add(pair);
-                sorted.add(currentPair);
-                added = true;
-            }
-            else {
-                sorted.add(currentPair);
-            }
+    public static void closeConnections(){
+        for(ServerConnection connection : connections){
+            connection.close();
+            connections.remove(connection);
         }
-
-        //jako ostatni
-        if(!added){
-            sorted.add(pair);
+        LevelRepository.stopWatching();
+        PropertiesRepository.stopWatching();
+        if(connectionExecutor != null) {
+            connectionExecutor.shutdownNow();
+            connectionExecutor = null;
         }
-        return sorted;
-    }
-
-    /**
-     * Zapisuje tablicę wyników do pliku
-     * @param scores Tablica wyników
-     */
-    private static void saveScoresOnServer(ArrayList<Pair<String,String>> scores){
-
-        if (scores != null){
-            try{
-                File scoresFile = new File("./data/server/highScores/highScores.txt");
-                scoresFile.delete();
-
-                try {
-                    PrintStream out = new PrintStream("./data/server/highScores/highScores.txt");
-
-                    for (Pair<String,String> pair : scores){
-                        out.println(pair.getKey() + " " + pair.getValue());
-                    }
-                }
-                catch (FileNotFoundException e){
-                    e.printStackTrace();
+        try {
+            if(running) {
+                if(nioServer != null) {
+                    nioServer.close();
+                    nioServer = null;
                 }
-            }catch(Exception e){
-                e.printStackTrace();
+                else
+                    serverSocket.close();
+                running = false;
             }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 }
@@ -0,0 +1,487 @@
+package Server;
+
+import Common.Message;
+import Common.Protocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serwer oparty na nieblokujących kanałach. Jeden wątek akceptuje połączenia, a niewielka,
+ * stała pula wątków wejścia/wyjścia obsługuje odczyt i zapis wszystkich klientów za pomocą selektorów
+ */
+class NioServer implements Runnable
+{
+    /**
+     * Odstęp (w milisekundach) pomiędzy kolejnymi raportami statystyk serwera
+     */
+    private static final long STATISTICS_INTERVAL = 10000;
+
+    /**
+     * Początkowy rozmiar bufora odczytu pojedynczego połączenia
+     */
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    /**
+     * Kanał serwera akceptujący połączenia klientów
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * Selektor czekający na nowe połączenia
+     */
+    private final Selector acceptSelector;
+
+    /**
+     * Pula wątków wejścia/wyjścia
+     */
+    private final IoWorker[] workers;
+
+    /**
+     * Mówi, czy serwer obecnie działa
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Indeks wątku, do którego trafi następne połączenie
+     */
+    private int nextWorker = 0;
+
+    /**
+     * Numer następnego klienta - używany jedynie w komunikatach
+     */
+    private int clientIndex = 1;
+
+    /**
+     * Otwiera kanał serwera na wybranym porcie i uruchamia wątki wejścia/wyjścia
+     * @param port Numer portu serwera
+     * @param ioThreads Liczba wątków wejścia/wyjścia
+     * @throws IOException Wyrzucany, gdy nie udało się otworzyć kanału
+     */
+    NioServer(int port, int ioThreads) throws IOException
+    {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        acceptSelector = Selector.open();
+        serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+        workers = new IoWorker[ioThreads];
+        for(int i = 0; i < workers.length; i++)
+        {
+            workers[i] = new IoWorker("IoWorker-" + i);
+            new Thread(workers[i], workers[i].name).start();
+        }
+    }
+
+    /**
+     * Akceptuje połączenia w pętli do czasu zamknięcia serwera, co jakiś czas wypisuje statystyki
+     */
+    @Override
+    public void run()
+    {
+        long lastReport = System.currentTimeMillis();
+        try
+        {
+            while(running)
+            {
+                acceptSelector.select(STATISTICS_INTERVAL);
+                Iterator<SelectionKey> keys = acceptSelector.selectedKeys().iterator();
+                while(keys.hasNext())
+                {
+                    keys.next();
+                    keys.remove();
+                    acceptClients();
+                }
+
+                if(System.currentTimeMillis() - lastReport >= STATISTICS_INTERVAL)
+                {
+                    printStatistics();
+                    lastReport = System.currentTimeMillis();
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if(running)
+                e.printStackTrace();
+        }
+    }
+
+    /**
+     * Akceptuje wszystkie oczekujące połączenia i rozdziela je po kolei pomiędzy wątki wejścia/wyjścia
+     * @throws IOException Wyrzucany przy błędzie akceptowania połączenia
+     */
+    private void acceptClients() throws IOException
+    {
+        SocketChannel channel;
+        while((channel = serverChannel.accept()) != null)
+        {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            workers[nextWorker].register(channel);
+            nextWorker = (nextWorker + 1) % workers.length;
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Client #" + clientIndex++ + " has connected");
+        }
+    }
+
+    /**
+     * Wypisuje liczbę połączeń obsługiwanych przez każdy wątek oraz opóźnienia zapytań od ostatniego raportu
+     */
+    private void printStatistics()
+    {
+        for(IoWorker worker : workers)
+        {
+            long requests = worker.requestCount.getAndSet(0);
+            long totalLatency = worker.totalLatency.getAndSet(0);
+            long maxLatency = worker.maxLatency.getAndSet(0);
+            double averageLatency = requests == 0 ? 0 : totalLatency / 1e6 / requests;
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + worker.name + ": "
+                    + worker.connectionCount.get() + " connections, " + requests + " requests, "
+                    + String.format("avg latency %.3f ms, max %.3f ms", averageLatency, maxLatency / 1e6));
+        }
+    }
+
+    /**
+     * Zamyka kanał serwera oraz wszystkie połączenia obsługiwane przez wątki wejścia/wyjścia
+     */
+    void close()
+    {
+        running = false;
+        for(IoWorker worker : workers)
+            worker.close();
+        try {
+            acceptSelector.close();
+            serverChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Klasa przechowująca stan pojedynczego połączenia - bufor odczytu oraz kolejkę odpowiedzi do wysłania
+     */
+    private static class NioConnection
+    {
+        /**
+         * Kanał klienta
+         */
+        private final SocketChannel channel;
+
+        /**
+         * Bufor, w którym gromadzone są fragmenty odebranych ramek
+         */
+        private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+        /**
+         * Kolejka odpowiedzi, które nie zostały jeszcze w całości zapisane do kanału
+         */
+        private final ArrayDeque<PendingWrite> writeQueue = new ArrayDeque<>();
+
+        /**
+         * Konstruktor, przypisuje kanał klienta
+         * @param channel Kanał klienta
+         */
+        NioConnection(SocketChannel channel)
+        {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Klasa reprezentująca odpowiedź oczekującą na zapis wraz z momentem odebrania zapytania
+     */
+    private static class PendingWrite
+    {
+        /**
+         * Bufor z zakodowaną ramką odpowiedzi
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Znacznik czasowy (w nanosekundach) odebrania zapytania
+         */
+        private final long requestStart;
+
+        /**
+         * Konstruktor, przypisuje wartości zmiennym
+         * @param buffer Bufor z zakodowaną ramką odpowiedzi
+         * @param requestStart Znacznik czasowy odebrania zapytania
+         */
+        PendingWrite(ByteBuffer buffer, long requestStart)
+        {
+            this.buffer = buffer;
+            this.requestStart = requestStart;
+        }
+    }
+
+    /**
+     * Wątek wejścia/wyjścia - obsługuje wszystkie przydzielone mu połączenia za pomocą jednego selektora
+     */
+    private static class IoWorker implements Runnable
+    {
+        /**
+         * Nazwa wątku
+         */
+        private final String name;
+
+        /**
+         * Selektor połączeń obsługiwanych przez ten wątek
+         */
+        private final Selector selector;
+
+        /**
+         * Kanały przydzielone wątkowi, które nie zostały jeszcze zarejestrowane w selektorze
+         */
+        private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Liczba obecnie obsługiwanych połączeń
+         */
+        private final AtomicInteger connectionCount = new AtomicInteger();
+
+        /**
+         * Liczba obsłużonych zapytań od ostatniego raportu
+         */
+        private final AtomicLong requestCount = new AtomicLong();
+
+        /**
+         * Suma opóźnień (w nanosekundach) obsłużonych zapytań od ostatniego raportu
+         */
+        private final AtomicLong totalLatency = new AtomicLong();
+
+        /**
+         * Największe opóźnienie (w nanosekundach) od ostatniego raportu
+         */
+        private final AtomicLong maxLatency = new AtomicLong();
+
+        /**
+         * Mówi, czy wątek powinien dalej działać
+         */
+        private volatile boolean running = true;
+
+        /**
+         * Konstruktor, otwiera selektor
+         * @param name Nazwa wątku
+         * @throws IOException Wyrzucany, gdy nie udało się otworzyć selektora
+         */
+        IoWorker(String name) throws IOException
+        {
+            this.name = name;
+            selector = Selector.open();
+        }
+
+        /**
+         * Przekazuje kanał do obsługi przez ten wątek
+         * @param channel Kanał klienta w trybie nieblokującym
+         */
+        void register(SocketChannel channel)
+        {
+            pendingChannels.add(channel);
+            selector.wakeup();
+        }
+
+        /**
+         * Obsługuje gotowe do odczytu i zapisu kanały w pętli do czasu zamknięcia serwera
+         */
+        @Override
+        public void run()
+        {
+            while(running)
+            {
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    break;
+                }
+                registerPendingChannels();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if(key.isValid() && key.isReadable())
+                            read(key);
+                        if(key.isValid() && key.isWritable())
+                            write(key);
+                    } catch (IOException | CancelledKeyException e) {
+                        closeConnection(key);
+                    } catch (RuntimeException e) {
+                        //błędne zapytanie jednego klienta nie może zatrzymać wątku obsługującego pozostałych
+                        e.printStackTrace();
+                        closeConnection(key);
+                    }
+                }
+            }
+            closeAll();
+        }
+
+        /**
+         * Rejestruje w selektorze kanały przydzielone przez wątek akceptujący
+         */
+        private void registerPendingChannels()
+        {
+            SocketChannel channel;
+            while((channel = pendingChannels.poll()) != null)
+            {
+                try {
+                    channel.register(selector, SelectionKey.OP_READ, new NioConnection(channel));
+                    connectionCount.incrementAndGet();
+                } catch (ClosedChannelException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        /**
+         * Odczytuje dostępne dane, dekoduje wszystkie kompletne ramki i kolejkuje odpowiedzi
+         * @param key Klucz gotowego kanału
+         * @throws IOException Wyrzucany przy błędzie odczytu lub uszkodzonej ramce
+         */
+        private void read(SelectionKey key) throws IOException
+        {
+            NioConnection connection = (NioConnection)key.attachment();
+            if(connection.channel.read(connection.readBuffer) == -1)
+            {
+                closeConnection(key);
+                return;
+            }
+
+            ByteBuffer buffer = connection.readBuffer;
+            buffer.flip();
+            int required = 0;
+            while(buffer.remaining() >= Protocol.HEADER_LENGTH)
+            {
+                int length = buffer.getInt(buffer.position());
+                Protocol.checkLength(length);
+                if(buffer.remaining() < Protocol.HEADER_LENGTH + length)
+                {
+                    required = Protocol.HEADER_LENGTH + length;
+                    break;
+                }
+
+                long requestStart = System.nanoTime();
+                Message message = Message.decode(buffer.array(), buffer.arrayOffset() + buffer.position() + Protocol.HEADER_LENGTH, length);
+                buffer.position(buffer.position() + Protocol.HEADER_LENGTH + length);
+
+                byte[] response = RequestHandler.handle(message);
+                if(response != null)
+                    connection.writeQueue.add(new PendingWrite(ByteBuffer.wrap(response), requestStart));
+                else
+                    recordLatency(requestStart);
+            }
+            buffer.compact();
+
+            //ramka nie mieści się w buforze - powiększamy go
+            if(required > buffer.capacity())
+            {
+                ByteBuffer larger = ByteBuffer.allocate(required);
+                buffer.flip();
+                larger.put(buffer);
+                connection.readBuffer = larger;
+            }
+
+            if(!connection.writeQueue.isEmpty())
+                write(key);
+        }
+
+        /**
+         * Zapisuje do kanału oczekujące odpowiedzi. Jeśli kanał nie przyjął wszystkich danych,
+         * zgłasza chęć zapisu w selektorze
+         * @param key Klucz kanału
+         * @throws IOException Wyrzucany przy błędzie zapisu
+         */
+        private void write(SelectionKey key) throws IOException
+        {
+            NioConnection connection = (NioConnection)key.attachment();
+            while(!connection.writeQueue.isEmpty())
+            {
+                PendingWrite pendingWrite = connection.writeQueue.peek();
+                connection.channel.write(pendingWrite.buffer);
+                if(pendingWrite.buffer.hasRemaining())
+                {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                connection.writeQueue.poll();
+                recordLatency(pendingWrite.requestStart);
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Zapisuje opóźnienie obsłużonego zapytania
+         * @param requestStart Znacznik czasowy (w nanosekundach) odebrania zapytania
+         */
+        private void recordLatency(long requestStart)
+        {
+            long latency = System.nanoTime() - requestStart;
+            requestCount.incrementAndGet();
+            totalLatency.addAndGet(latency);
+            long max;
+            while(latency > (max = maxLatency.get()) && !maxLatency.compareAndSet(max, latency));
+        }
+
+        /**
+         * Zamyka połączenie z klientem. Anulowany klucz pozostaje w {@code selector.keys()} do następnego
+         * wywołania {@code select()}, więc klucz już zamknięty jest pomijany - inaczej połączenie zostałoby
+         * policzone jako zamknięte dwa razy
+         * @param key Klucz kanału
+         */
+        private void closeConnection(SelectionKey key)
+        {
+            if(!key.isValid())
+                return;
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            connectionCount.decrementAndGet();
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Client has disconnected (" + name + ")");
+        }
+
+        /**
+         * Zamyka wszystkie połączenia oraz selektor
+         */
+        private void closeAll()
+        {
+            SocketChannel channel;
+            while((channel = pendingChannels.poll()) != null)
+            {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            for(SelectionKey key : selector.keys())
+                closeConnection(key);
+            try {
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Zatrzymuje wątek - połączenia zostaną zamknięte po wyjściu z pętli
+         */
+        void close()
+        {
+            running = false;
+            selector.wakeup();
+        }
+    }
+}
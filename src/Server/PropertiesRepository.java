@@ -0,0 +1,120 @@
+package Server;
+
+import Common.Protocol;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Klasa przechowująca pliki właściwości w pamięci jako gotowe ramki odpowiedzi {@link Protocol#PROPERTIES}.
+ * Po zmianie pliku na dysku ramka jest kodowana od nowa i podmieniana w całości, więc połączenia
+ * zawsze dostają albo starą, albo nową wersję pliku
+ */
+class PropertiesRepository
+{
+    /**
+     * Katalog z plikami właściwości
+     */
+    private static final Path PROPERTIES_DIRECTORY = Paths.get("./data/server");
+
+    /**
+     * Wzorzec dopuszczalnych nazw plików właściwości - chroni przed odczytem plików spoza katalogu
+     */
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_]+");
+
+    /**
+     * Zakodowane ramki plików właściwości, kluczem jest nazwa pliku bez rozszerzenia.
+     * Tablice nie są modyfikowane po umieszczeniu w mapie
+     */
+    private static final Map<String, byte[]> propertiesFrames = new ConcurrentHashMap<>();
+
+    /**
+     * Obiekt obserwujący katalog {@link #PROPERTIES_DIRECTORY}
+     */
+    private static final DirectoryWatcher watcher = new DirectoryWatcher("properties-watcher", PROPERTIES_DIRECTORY, PropertiesRepository::propertiesFileChanged);
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private PropertiesRepository() {}
+
+    /**
+     * Zwraca ramkę z danym plikiem właściwości, w razie potrzeby wczytując go z dysku
+     * @param name Nazwa pliku właściwości (bez rozszerzenia)
+     * @return Zakodowana ramka odpowiedzi - z pustymi właściwościami, jeśli plik nie istnieje
+     */
+    static byte[] getPropertiesFrame(String name)
+    {
+        if(!NAME_PATTERN.matcher(name).matches()) {
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Nieprawidlowa nazwa pliku .properties: " + name);
+            return Protocol.encodeProperties(name, new Properties());
+        }
+        return propertiesFrames.computeIfAbsent(name, key -> loadPropertiesFrame(key, null));
+    }
+
+    /**
+     * Wczytuje plik właściwości i koduje go jako ramkę odpowiedzi
+     * @param name Nazwa pliku właściwości (bez rozszerzenia)
+     * @param previousFrame Poprzednia ramka, zwracana, gdy pliku nie da się odczytać (np. w trakcie zapisu)
+     * @return Zakodowana ramka odpowiedzi
+     */
+    private static byte[] loadPropertiesFrame(String name, byte[] previousFrame)
+    {
+        Properties properties = new Properties();
+        try (FileInputStream fileInputStream = new FileInputStream(PROPERTIES_DIRECTORY.resolve(name + ".properties").toFile())) {
+            properties.load(fileInputStream);
+        } catch (FileNotFoundException e) {
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Nie udalo sie odnalezc pliku .properties");
+        } catch (IOException e) {
+            e.printStackTrace();
+            if(previousFrame != null)
+                return previousFrame;
+        }
+        return Protocol.encodeProperties(name, properties);
+    }
+
+    /**
+     * Uruchamia wątek obserwujący katalog z plikami właściwości. Kolejne wywołania nic nie robią
+     */
+    static void startWatching()
+    {
+        watcher.start();
+    }
+
+    /**
+     * Zatrzymuje wątek obserwujący katalog z plikami właściwości i czyści pamięć
+     */
+    static void stopWatching()
+    {
+        watcher.stop();
+        propertiesFrames.clear();
+    }
+
+    /**
+     * Koduje od nowa plik właściwości, który się zmienił, o ile był już w pamięci.
+     * Przy utracie zdarzeń przeładowywane są wszystkie pliki
+     * @param fileName Nazwa zmienionego pliku lub {@code null} przy utracie zdarzeń
+     */
+    private static void propertiesFileChanged(Path fileName)
+    {
+        if(fileName == null) {
+            for(String name : propertiesFrames.keySet())
+                propertiesFrames.computeIfPresent(name, PropertiesRepository::loadPropertiesFrame);
+            return;
+        }
+        String file = fileName.toString();
+        if(!file.endsWith(".properties"))
+            return;
+        String name = file.substring(0, file.length() - ".properties".length());
+        if(propertiesFrames.computeIfPresent(name, PropertiesRepository::loadPropertiesFrame) != null)
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Properties " + name + " reloaded");
+    }
+}
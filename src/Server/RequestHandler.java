@@ -0,0 +1,99 @@
+package Server;
+
+import Common.Message;
+import Common.Protocol;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+
+/**
+ * Klasa obsługująca zapytania klientów niezależnie od sposobu, w jaki serwer obsługuje gniazdka.
+ * Wykorzystywana zarówno przez {@link ServerConnection}, jak i przez {@link NioServer}
+ */
+class RequestHandler
+{
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private RequestHandler() {}
+
+    /**
+     * Obsługuje wiadomość na podstawie jej kodu operacji
+     * @param message Odebrana wiadomość
+     * @return Zakodowana ramka z odpowiedzią lub {@code null}, jeśli zapytanie nie wymaga odpowiedzi
+     * @throws IOException Wyrzucany przy uszkodzonych danych wiadomości
+     */
+    static byte[] handle(Message message) throws IOException
+    {
+        switch(message.opcode)
+        {
+            case Protocol.GET_PROPERTIES:
+            {
+                String name = message.payload.readUTF();
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + "SEND Properties " + name);
+                return PropertiesRepository.getPropertiesFrame(name);
+            }
+
+            case Protocol.GET_LEVEL:
+            {
+                int levelIndex = message.payload.readInt();
+                byte[] levelFrame = LevelRepository.getLevelFrame(levelIndex);
+                if(levelFrame != null)
+                    System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + "SEND Level " + levelIndex);
+                return levelFrame;
+            }
+
+            case Protocol.GET_LEADERBOARD:
+            {
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] "+ "SEND Leaderboard");
+                return ScoreWriter.getLeaderboardFrame();
+            }
+
+            case Protocol.UPDATE_HIGHSCORE:
+            {
+                ScoreWriter.submit(message.payload.readUTF(), message.payload.readInt());
+                return null;
+            }
+
+            case Protocol.GET_LEADERBOARD_PAGE:
+            {
+                int offset = Math.max(0, message.payload.readInt());
+                int limit = Math.min(Protocol.MAX_LEADERBOARD_SIZE, Math.max(0, message.payload.readInt()));
+                ShardedScoreIndex index = ScoreWriter.getIndex();
+                return Protocol.encodeLeaderboardPage(offset, index.size(), index.page(offset, limit));
+            }
+
+            case Protocol.GET_RANK:
+            {
+                String name = ScoreWriter.normalizeName(message.payload.readUTF());
+                ShardedScoreIndex index = ScoreWriter.getIndex();
+                Integer bestScore = ScoreWriter.getBestScore(name);
+                if(bestScore == null)
+                    return Protocol.encodeRank(name, 0, 0, index.size());
+                return Protocol.encodeRank(name, index.rankOf(bestScore), bestScore, index.size());
+            }
+
+            case Protocol.GET_SCORE_RANGE:
+            {
+                int minScore = message.payload.readInt();
+                int maxScore = message.payload.readInt();
+                int limit = Math.min(Protocol.MAX_LEADERBOARD_SIZE, Math.max(0, message.payload.readInt()));
+                ShardedScoreIndex index = ScoreWriter.getIndex();
+                return Protocol.encodeLeaderboardPage(index.firstAtMost(maxScore), index.size(), index.range(minScore, maxScore, limit));
+            }
+
+            case Protocol.GET_BOOTSTRAP:
+            {
+                String clientVersion = message.payload.readUTF();
+                boolean allLevels = message.payload.readBoolean();
+                byte[] response = BootstrapRepository.getBootstrapFrame(clientVersion, allLevels);
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + (response[Protocol.HEADER_LENGTH] == Protocol.BOOTSTRAP ? "SEND Bootstrap" : "SEND Bootstrap not modified"));
+                return response;
+            }
+
+            default:
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Unknown opcode: " + message.opcode);
+                return null;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package Server;
+
+import javafx.util.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Niezmienny indeks rankingowy tabeli wyników - drzewo statystyk pozycyjnych (drzewiec) uporządkowane malejąco
+ * po wyniku, a przy równych wynikach według kolejności dodania. Dodanie wyniku kopiuje jedynie ścieżkę od korzenia
+ * do nowego węzła i zwraca nowy indeks, więc czytelnicy mogą bez blokad korzystać z dowolnej wcześniejszej wersji.
+ * Zapytania o stronę tabeli, pozycję wyniku i przedział wyników działają w czasie O(log n) (plus rozmiar odpowiedzi)
+ */
+final class ScoreIndex
+{
+    /**
+     * Węzeł drzewa - jeden wpis w tabeli wyników
+     */
+    private static final class Node
+    {
+        /**
+         * Imię gracza
+         */
+        final String name;
+
+        /**
+         * Wynik gracza
+         */
+        final int score;
+
+        /**
+         * Numer kolejny dodania - rozstrzyga kolejność przy równych wynikach
+         */
+        final long sequence;
+
+        /**
+         * Priorytet kopca, wyznaczany z numeru kolejnego
+         */
+        final long priority;
+
+        /**
+         * Lewe poddrzewo - wpisy wyżej w tabeli
+         */
+        final Node left;
+
+        /**
+         * Prawe poddrzewo - wpisy niżej w tabeli
+         */
+        final Node right;
+
+        /**
+         * Liczba węzłów w poddrzewie zakorzenionym w tym węźle
+         */
+        final int size;
+
+        /**
+         * Konstruktor, przypisuje wartości zmiennym i wylicza rozmiar poddrzewa
+         * @param name Imię gracza
+         * @param score Wynik gracza
+         * @param sequence Numer kolejny dodania
+         * @param priority Priorytet kopca
+         * @param left Lewe poddrzewo
+         * @param right Prawe poddrzewo
+         */
+        Node(String name, int score, long sequence, long priority, Node left, Node right)
+        {
+            this.name = name;
+            this.score = score;
+            this.sequence = sequence;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        /**
+         * Tworzy kopię węzła z innymi poddrzewami
+         * @param left Nowe lewe poddrzewo
+         * @param right Nowe prawe poddrzewo
+         * @return Kopia węzła
+         */
+        Node with(Node left, Node right)
+        {
+            return new Node(name, score, sequence, priority, left, right);
+        }
+    }
+
+    /**
+     * Pusty indeks
+     */
+    static final ScoreIndex EMPTY = new ScoreIndex(null, 0);
+
+    /**
+     * Korzeń drzewa
+     */
+    private final Node root;
+
+    /**
+     * Numer kolejny nadawany następnemu dodanemu wynikowi
+     */
+    private final long nextSequence;
+
+    /**
+     * Konstruktor, przypisuje wartości zmiennym
+     * @param root Korzeń drzewa
+     * @param nextSequence Numer kolejny następnego wyniku
+     */
+    private ScoreIndex(Node root, long nextSequence)
+    {
+        this.root = root;
+        this.nextSequence = nextSequence;
+    }
+
+    /**
+     * Zwraca indeks z dodanym wynikiem. Przy równych wynikach nowy wpis trafia za wpisy już obecne
+     * @param name Imię gracza
+     * @param score Wynik gracza
+     * @return Nowy indeks - ten indeks pozostaje niezmieniony
+     */
+    ScoreIndex insert(String name, int score)
+    {
+        Node node = new Node(name, score, nextSequence, mix(nextSequence), null, null);
+        return new ScoreIndex(insert(root, node), nextSequence + 1);
+    }
+
+    /**
+     * Liczba wpisów w tabeli
+     * @return Liczba wpisów
+     */
+    int size()
+    {
+        return size(root);
+    }
+
+    /**
+     * Zwraca stronę tabeli
+     * @param offset Pozycja pierwszego wpisu, licząc od 0
+     * @param limit Maksymalna liczba wpisów
+     * @return Lista par imię-wynik w kolejności malejącej
+     */
+    List<Pair<String, Integer>> page(int offset, int limit)
+    {
+        int from = Math.max(0, offset);
+        int to = (int)Math.min((long)from + Math.max(0, limit), size());
+        ArrayList<Pair<String, Integer>> entries = new ArrayList<>(Math.max(0, to - from));
+        collect(root, 0, from, to, entries);
+        return entries;
+    }
+
+    /**
+     * Zwraca całą tabelę
+     * @return Lista par imię-wynik w kolejności malejącej
+     */
+    List<Pair<String, Integer>> toList()
+    {
+        return page(0, size());
+    }
+
+    /**
+     * Liczy wpisy z wynikiem większym od podanego
+     * @param score Wynik
+     * @return Liczba wpisów z większym wynikiem
+     */
+    int countAbove(int score)
+    {
+        int count = 0;
+        Node node = root;
+        while(node != null)
+        {
+            if(node.score > score) {
+                count += size(node.left) + 1;
+                node = node.right;
+            }
+            else
+                node = node.left;
+        }
+        return count;
+    }
+
+    /**
+     * Zwraca pozycję, jaką w tabeli zajmuje wynik
+     * @param score Wynik
+     * @return Pozycja, licząc od 1 - wyniki równe zajmują tę samą pozycję
+     */
+    int rankOf(int score)
+    {
+        return countAbove(score) + 1;
+    }
+
+    /**
+     * Zwraca pozycję pierwszego wpisu o wyniku nie większym od podanego
+     * @param maxScore Górna granica przedziału wyników
+     * @return Pozycja, licząc od 0
+     */
+    int firstAtMost(int maxScore)
+    {
+        return countAbove(maxScore);
+    }
+
+    /**
+     * Liczy wpisy z wynikiem z podanego przedziału
+     * @param minScore Dolna granica przedziału (włącznie)
+     * @param maxScore Górna granica przedziału (włącznie)
+     * @return Liczba wpisów
+     */
+    int countInRange(int minScore, int maxScore)
+    {
+        if(minScore > maxScore)
+            return 0;
+        int atLeastMin = minScore == Integer.MIN_VALUE ? size() : countAbove(minScore - 1);
+        return atLeastMin - countAbove(maxScore);
+    }
+
+    /**
+     * Zwraca wpisy z wynikiem z podanego przedziału
+     * @param minScore Dolna granica przedziału (włącznie)
+     * @param maxScore Górna granica przedziału (włącznie)
+     * @param limit Maksymalna liczba wpisów
+     * @return Lista par imię-wynik w kolejności malejącej
+     */
+    List<Pair<String, Integer>> range(int minScore, int maxScore, int limit)
+    {
+        return page(firstAtMost(maxScore), Math.min(limit, countInRange(minScore, maxScore)));
+    }
+
+    /**
+     * Rozmiar poddrzewa
+     * @param node Korzeń poddrzewa lub {@code null}
+     * @return Liczba węzłów
+     */
+    private static int size(Node node)
+    {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Sprawdza, czy wpis a znajduje się w tabeli przed wpisem b
+     * @param a Pierwszy wpis
+     * @param b Drugi wpis
+     * @return {@code true}, jeśli a ma większy wynik lub równy wynik i został dodany wcześniej
+     */
+    private static boolean before(Node a, Node b)
+    {
+        return a.score != b.score ? a.score > b.score : a.sequence < b.sequence;
+    }
+
+    /**
+     * Wstawia węzeł do poddrzewa, kopiując ścieżkę od korzenia
+     * @param tree Korzeń poddrzewa
+     * @param node Wstawiany węzeł (bez poddrzew)
+     * @return Korzeń nowego poddrzewa
+     */
+    private static Node insert(Node tree, Node node)
+    {
+        if(tree == null)
+            return node;
+        if(node.priority > tree.priority) {
+            Node[] parts = split(tree, node);
+            return node.with(parts[0], parts[1]);
+        }
+        if(before(node, tree))
+            return tree.with(insert(tree.left, node), tree.right);
+        return tree.with(tree.left, insert(tree.right, node));
+    }
+
+    /**
+     * Dzieli poddrzewo na wpisy przed i za podanym węzłem, kopiując ścieżkę podziału
+     * @param tree Korzeń poddrzewa
+     * @param node Węzeł wyznaczający miejsce podziału
+     * @return Dwuelementowa tablica - korzenie poddrzew przed i za węzłem
+     */
+    private static Node[] split(Node tree, Node node)
+    {
+        if(tree == null)
+            return new Node[2];
+        if(before(tree, node)) {
+            Node[] parts = split(tree.right, node);
+            parts[0] = tree.with(tree.left, parts[0]);
+            return parts;
+        }
+        Node[] parts = split(tree.left, node);
+        parts[1] = tree.with(parts[1], tree.right);
+        return parts;
+    }
+
+    /**
+     * Dodaje do listy wpisy poddrzewa o pozycjach z przedziału [from, to)
+     * @param node Korzeń poddrzewa
+     * @param first Pozycja pierwszego wpisu poddrzewa w całej tabeli
+     * @param from Początek przedziału pozycji
+     * @param to Koniec przedziału pozycji (wyłącznie)
+     * @param entries Lista wynikowa
+     */
+    private static void collect(Node node, int first, int from, int to, List<Pair<String, Integer>> entries)
+    {
+        if(node == null || first >= to || first + node.size <= from)
+            return;
+        int position = first + size(node.left);
+        collect(node.left, first, from, to, entries);
+        if(position >= from && position < to)
+            entries.add(new Pair<>(node.name, node.score));
+        collect(node.right, position + 1, from, to, entries);
+    }
+
+    /**
+     * Wyznacza pseudolosowy priorytet z numeru kolejnego (SplitMix64)
+     * @param sequence Numer kolejny
+     * @return Priorytet
+     */
+    private static long mix(long sequence)
+    {
+        long z = sequence * 0x9E3779B97F4A7C15L + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
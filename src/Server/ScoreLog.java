@@ -0,0 +1,323 @@
+package Server;
+
+import javafx.util.Pair;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Dziennik zapisu z wyprzedzeniem dla tabeli najlepszych wyników. Każdy wynik to jeden rekord dopisywany na końcu
+ * pliku segmentu (np. {@code highScores.3.log}): długość, suma kontrolna CRC32 i dane (imię, wynik). Partia wyników
+ * zapisywana jest jednym zapisem i utrwalana jednym wywołaniem {@code force}. Gdy segment urośnie, zapis przechodzi
+ * do nowego segmentu, a w tle tabela zapisywana jest jako migawka (np. {@code highScores.txt}), po czym ujęte w niej
+ * segmenty są usuwane.
+ * Pierwsza linijka migawki - {@code #segment=N} - mówi, od którego segmentu należy odtwarzać dziennik
+ */
+class ScoreLog
+{
+    /**
+     * Rozmiar segmentu, po przekroczeniu którego wykonywane jest zagęszczanie
+     */
+    private static final long COMPACTION_THRESHOLD = 256 * 1024;
+
+    /**
+     * Maksymalna długość danych rekordu - dłuższy rekord oznacza uszkodzony plik
+     */
+    private static final int MAX_RECORD_LENGTH = 1 << 16;
+
+    /**
+     * Przedrostek linijki migawki zawierającej numer pierwszego nieujętego segmentu
+     */
+    private static final String SEGMENT_HEADER = "#segment=";
+
+    /**
+     * Katalog z migawką i segmentami dziennika
+     */
+    private final Path directory;
+
+    /**
+     * Plik migawki
+     */
+    private final Path snapshotFile;
+
+    /**
+     * Nazwa pliku migawki bez rozszerzenia - przedrostek nazw plików segmentów
+     */
+    private final String prefix;
+
+    /**
+     * Kanał segmentu, do którego dopisywane są rekordy
+     */
+    private FileChannel channel;
+
+    /**
+     * Numer segmentu, do którego dopisywane są rekordy
+     */
+    private int segment;
+
+    /**
+     * Wątek zapisujący migawki w tle
+     */
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ScoreCompactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Mówi, czy zapis migawki jest w toku
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * Konstruktor, przypisuje wartości zmiennym
+     * @param snapshotFile Plik migawki - segmenty dziennika zapisywane są obok niego, pod tą samą nazwą z numerem segmentu
+     */
+    ScoreLog(Path snapshotFile)
+    {
+        this.snapshotFile = snapshotFile;
+        this.directory = snapshotFile.getParent();
+        String fileName = snapshotFile.getFileName().toString();
+        this.prefix = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+    }
+
+    /**
+     * Odtwarza tabelę - przekazuje wyniki z migawki, a potem z kolejnych segmentów dziennika. Uszkodzona końcówka
+     * ostatniego segmentu (np. po awarii w trakcie zapisu) jest obcinana. Otwiera segment do dalszego zapisu
+     * @param consumer Funkcja przyjmująca kolejne pary imię-wynik
+     * @throws IOException Wyrzucany przy błędzie odczytu lub otwarcia segmentu
+     */
+    void recover(BiConsumer<String, Integer> consumer) throws IOException
+    {
+        Files.createDirectories(directory);
+        int firstSegment = readSnapshot(consumer);
+
+        List<Integer> segments = listSegments();
+        int replayed = 0;
+        segment = firstSegment;
+        for(int index : segments)
+        {
+            if(index < firstSegment) {
+                Files.deleteIfExists(segmentFile(index));
+                continue;
+            }
+            replayed += replaySegment(index, consumer);
+            segment = Math.max(segment, index);
+        }
+        channel = openSegment(segment);
+        System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Score log " + prefix + " recovered, " + replayed + " records replayed");
+    }
+
+    /**
+     * Dopisuje partię wyników jednym zapisem i utrwala ją na dysku
+     * @param batch Partia par imię-wynik
+     * @throws IOException Wyrzucany przy błędzie zapisu
+     */
+    void append(List<Pair<String, Integer>> batch) throws IOException
+    {
+        if(channel == null)
+            throw new IOException("Score log is not open");
+        ByteArrayOutputStream records = new ByteArrayOutputStream(batch.size() * 32);
+        DataOutputStream out = new DataOutputStream(records);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(32);
+        DataOutputStream payloadOut = new DataOutputStream(payload);
+        CRC32 crc = new CRC32();
+        for(Pair<String, Integer> score : batch)
+        {
+            payload.reset();
+            payloadOut.writeUTF(score.getKey());
+            payloadOut.writeInt(score.getValue());
+            crc.reset();
+            crc.update(payload.toByteArray(), 0, payload.size());
+
+            out.writeInt(payload.size());
+            out.writeInt((int)crc.getValue());
+            payload.writeTo(out);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+        while(buffer.hasRemaining())
+            channel.write(buffer);
+        channel.force(false);
+    }
+
+    /**
+     * Jeśli bieżący segment jest duży, rozpoczyna nowy segment i zleca w tle zapis migawki
+     * @param index Indeks zawierający wszystkie wyniki zapisane dotąd w dzienniku
+     * @throws IOException Wyrzucany przy błędzie otwarcia nowego segmentu
+     */
+    void compactIfNeeded(ScoreIndex index) throws IOException
+    {
+        if(channel == null || channel.size() < COMPACTION_THRESHOLD || !compacting.compareAndSet(false, true))
+            return;
+
+        channel.close();
+        int nextSegment = segment + 1;
+        channel = openSegment(nextSegment);
+        segment = nextSegment;
+
+        compactor.execute(() -> {
+            try {
+                writeSnapshot(index.toList(), nextSegment);
+                for(int oldSegment : listSegments())
+                    if(oldSegment < nextSegment)
+                        Files.deleteIfExists(segmentFile(oldSegment));
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Score log " + prefix + " compacted into a snapshot of " + index.size() + " scores");
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * Wczytuje migawkę
+     * @param consumer Funkcja przyjmująca kolejne pary imię-wynik
+     * @return Numer pierwszego segmentu, który nie jest ujęty w migawce
+     * @throws IOException Wyrzucany przy błędzie odczytu
+     */
+    private int readSnapshot(BiConsumer<String, Integer> consumer) throws IOException
+    {
+        int firstSegment = 0;
+        if(!Files.exists(snapshotFile))
+            return firstSegment;
+        for(String line : Files.readAllLines(snapshotFile, StandardCharsets.UTF_8))
+        {
+            if(line.startsWith(SEGMENT_HEADER)) {
+                firstSegment = Integer.parseInt(line.substring(SEGMENT_HEADER.length()).trim());
+                continue;
+            }
+            String[] results = line.split(" ");
+            try {
+                if(results.length == 2)
+                    consumer.accept(results[0], Integer.parseInt(results[1]));
+            } catch (NumberFormatException e) {
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Skipping malformed score line: " + line);
+            }
+        }
+        return firstSegment;
+    }
+
+    /**
+     * Zapisuje migawkę do pliku tymczasowego, który następnie zastępuje poprzednią migawkę
+     * @param table Tabela wyników posortowana malejąco
+     * @param firstSegment Numer pierwszego segmentu, który nie jest ujęty w migawce
+     * @throws IOException Wyrzucany przy błędzie zapisu
+     */
+    private void writeSnapshot(List<Pair<String, Integer>> table, int firstSegment) throws IOException
+    {
+        Path temporaryFile = Files.createTempFile(directory, prefix, ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temporaryFile.toFile());
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(fileOut, StandardCharsets.UTF_8))) {
+            out.write(SEGMENT_HEADER + firstSegment);
+            out.newLine();
+            for(Pair<String, Integer> score : table) {
+                out.write(score.getKey() + " " + score.getValue());
+                out.newLine();
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        try {
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Odtwarza rekordy segmentu. Czyta do pierwszego niekompletnego lub uszkodzonego rekordu i obcina plik w tym miejscu
+     * @param index Numer segmentu
+     * @param consumer Funkcja przyjmująca kolejne pary imię-wynik
+     * @return Liczba odtworzonych rekordów
+     * @throws IOException Wyrzucany przy błędzie odczytu
+     */
+    private int replaySegment(int index, BiConsumer<String, Integer> consumer) throws IOException
+    {
+        Path file = segmentFile(index);
+        byte[] data = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        CRC32 crc = new CRC32();
+        int records = 0;
+        int validLength = 0;
+        while(buffer.remaining() >= 8)
+        {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if(length < 0 || length > MAX_RECORD_LENGTH || length > buffer.remaining())
+                break;
+            crc.reset();
+            crc.update(data, buffer.position(), length);
+            if((int)crc.getValue() != checksum)
+                break;
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, buffer.position(), length));
+            consumer.accept(in.readUTF(), in.readInt());
+            buffer.position(buffer.position() + length);
+            validLength = buffer.position();
+            records++;
+        }
+        if(validLength < data.length) {
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Truncating damaged tail of " + file.getFileName() + " at byte " + validLength);
+            try (FileChannel truncated = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncated.truncate(validLength);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Otwiera segment do dopisywania
+     * @param index Numer segmentu
+     * @return Kanał ustawiony na końcu pliku segmentu
+     * @throws IOException Wyrzucany przy błędzie otwarcia
+     */
+    private FileChannel openSegment(int index) throws IOException
+    {
+        return FileChannel.open(segmentFile(index), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Zwraca posortowane numery istniejących segmentów
+     * @return Lista numerów segmentów
+     * @throws IOException Wyrzucany przy błędzie odczytu katalogu
+     */
+    private List<Integer> listSegments() throws IOException
+    {
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + ".*.log")) {
+            for(Path file : files)
+            {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Integer.parseInt(name.substring(prefix.length() + 1, name.length() - ".log".length())));
+                } catch (NumberFormatException e) {
+                    //plik nie jest segmentem dziennika
+                }
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    /**
+     * Zwraca ścieżkę pliku segmentu
+     * @param index Numer segmentu
+     * @return Ścieżka pliku segmentu
+     */
+    private Path segmentFile(int index)
+    {
+        return directory.resolve(prefix + "." + index + ".log");
+    }
+}
@@ -0,0 +1,287 @@
+package Server;
+
+import Common.Protocol;
+import javafx.util.Pair;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Klasa zarządzająca tabelą najlepszych wyników. Tabela podzielona jest na części według imienia gracza - każda część
+ * ma własną kolejkę, wątek zapisujący, dziennik {@link ScoreLog} i indeks rankingowy {@link ScoreIndex}, więc wyniki
+ * różnych graczy zapisywane są równolegle. Zapytania o tabelę obsługiwane są bez blokad z widoku
+ * {@link ShardedScoreIndex} złożonego z aktualnych wersji indeksów wszystkich części
+ */
+class ScoreWriter
+{
+    /**
+     * Katalog z tabelą najlepszych wyników
+     */
+    private static final Path SCORES_DIRECTORY = Paths.get("./data/server/highScores");
+
+    /**
+     * Liczba części tabeli - zmiana pozostawia pliki usuniętych części nieodczytane
+     */
+    private static final int SHARD_COUNT = 4;
+
+    /**
+     * Maksymalna liczba wyników scalanych w jednej partii
+     */
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    /**
+     * Klasa reprezentująca jedną część tabeli
+     */
+    private static final class Shard
+    {
+        /**
+         * Numer części
+         */
+        final int number;
+
+        /**
+         * Kolejka zgłoszonych wyników, oczekujących na zapis
+         */
+        final BlockingQueue<Pair<String, Integer>> pendingScores = new LinkedBlockingQueue<>();
+
+        /**
+         * Dziennik wyników części
+         */
+        final ScoreLog scoreLog;
+
+        /**
+         * Aktualna wersja indeksu części - odbudowywana z dziennika przy starcie, podmieniana po każdej partii
+         */
+        volatile ScoreIndex index;
+
+        /**
+         * Konstruktor, odtwarza część z dziennika. Część 0 korzysta z plików sprzed podziału tabeli
+         * @param number Numer części
+         */
+        Shard(int number)
+        {
+            this.number = number;
+            this.scoreLog = new ScoreLog(SCORES_DIRECTORY.resolve(number == 0 ? "highScores.txt" : "highScores-" + number + ".txt"));
+            this.index = loadScores();
+        }
+
+        /**
+         * Pętla wątku zapisującego - czeka na pierwszy wynik, dobiera pozostałe oczekujące, utrwala je w dzienniku,
+         * a dopiero potem udostępnia nową wersję indeksu
+         */
+        void writeScores()
+        {
+            ArrayList<Pair<String, Integer>> batch = new ArrayList<>();
+            while(true)
+            {
+                try {
+                    batch.add(pendingScores.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                pendingScores.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+                try {
+                    scoreLog.append(batch);
+                } catch (IOException e) {
+                    System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Highscores could not be written to the log");
+                    e.printStackTrace();
+                }
+
+                ScoreIndex updated = index;
+                for(Pair<String, Integer> score : batch)
+                    updated = add(updated, score.getKey(), score.getValue());
+                index = updated;
+
+                try {
+                    scoreLog.compactIfNeeded(updated);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + "Highscores received (shard " + number + "): " + batch.size());
+                batch.clear();
+            }
+        }
+
+        /**
+         * Odbudowuje indeks z migawki i dziennika wyników
+         * @return Indeks, pusty, jeśli nie zapisano jeszcze żadnego wyniku
+         */
+        private ScoreIndex loadScores()
+        {
+            ScoreIndex[] loaded = {ScoreIndex.EMPTY};
+            try {
+                scoreLog.recover((name, score) -> loaded[0] = add(loaded[0], name, score));
+            } catch (IOException e) {
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Score log could not be recovered");
+                e.printStackTrace();
+            }
+            return loaded[0];
+        }
+    }
+
+    /**
+     * Klasa łącząca widok tabeli z zakodowaną z niego ramką {@link Protocol#LEADERBOARD}
+     */
+    private static final class EncodedLeaderboard
+    {
+        /**
+         * Widok tabeli
+         */
+        final ShardedScoreIndex index;
+
+        /**
+         * Ramka z początkiem tabeli
+         */
+        final byte[] frame;
+
+        /**
+         * Konstruktor, koduje z widoku pierwsze {@link Protocol#MAX_LEADERBOARD_SIZE} wyników tabeli
+         * @param index Widok tabeli
+         */
+        EncodedLeaderboard(ShardedScoreIndex index)
+        {
+            this.index = index;
+            this.frame = Protocol.encodeLeaderboard(index.page(0, Protocol.MAX_LEADERBOARD_SIZE));
+        }
+    }
+
+    /**
+     * Najlepszy wynik każdego gracza - pozwala odpowiadać na pytanie o pozycję gracza
+     */
+    private static final Map<String, Integer> bestScores = new ConcurrentHashMap<>();
+
+    /**
+     * Części tabeli
+     */
+    private static final Shard[] shards = createShards();
+
+    /**
+     * Ostatnio złożony widok tabeli, składany ponownie dopiero, gdy któraś z części się zmieni
+     */
+    private static volatile ShardedScoreIndex view;
+
+    /**
+     * Ostatnio zakodowany początek tabeli, kodowany ponownie dopiero przy zapytaniu o nowszy widok
+     */
+    private static volatile EncodedLeaderboard encodedLeaderboard;
+
+    /**
+     * Mówi, czy wątki zapisujące zostały uruchomione
+     */
+    private static boolean started;
+
+    /**
+     * Klasa zawiera jedynie metody statyczne
+     */
+    private ScoreWriter() {}
+
+    /**
+     * Uruchamia wątki zapisujące wyniki - po jednym na część tabeli. Kolejne wywołania nic nie robią
+     */
+    static synchronized void start()
+    {
+        if(started)
+            return;
+        started = true;
+        for(Shard shard : shards)
+            new Thread(shard::writeScores, "ScoreWriter-" + shard.number).start();
+    }
+
+    /**
+     * Dodaje wynik do kolejki części tabeli, do której należy gracz
+     * @param name Imię gracza - białe znaki zastępowane są podkreśleniami, bo rozdzielają pola w pliku
+     * @param score Wynik gracza
+     */
+    static void submit(String name, int score)
+    {
+        String normalizedName = normalizeName(name);
+        shards[Math.floorMod(normalizedName.hashCode(), SHARD_COUNT)].pendingScores.add(new Pair<>(normalizedName, score));
+    }
+
+    /**
+     * Zastępuje białe znaki w imieniu gracza podkreśleniami i skraca je do {@link Protocol#MAX_NAME_LENGTH} znaków
+     * @param name Imię gracza
+     * @return Imię w postaci zapisywanej w tabeli
+     */
+    static String normalizeName(String name)
+    {
+        String normalized = name.trim().replaceAll("\\s+", "_");
+        return normalized.length() > Protocol.MAX_NAME_LENGTH ? normalized.substring(0, Protocol.MAX_NAME_LENGTH) : normalized;
+    }
+
+    /**
+     * Zwraca widok tabeli złożony z aktualnych wersji indeksów wszystkich części
+     * @return Widok tabeli
+     */
+    static ShardedScoreIndex getIndex()
+    {
+        ScoreIndex[] current = new ScoreIndex[shards.length];
+        for(int i = 0; i < shards.length; i++)
+            current[i] = shards[i].index;
+        ShardedScoreIndex cached = view;
+        if(cached == null || !cached.isViewOf(current)) {
+            cached = new ShardedScoreIndex(current);
+            view = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Zwraca najlepszy wynik gracza
+     * @param name Imię gracza w postaci zapisywanej w tabeli
+     * @return Najlepszy wynik lub {@code null}, jeśli gracza nie ma w tabeli
+     */
+    static Integer getBestScore(String name)
+    {
+        return bestScores.get(name);
+    }
+
+    /**
+     * Zwraca ramkę z pierwszymi {@link Protocol#MAX_LEADERBOARD_SIZE} wynikami tabeli, kodując ją ponownie tylko
+     * wtedy, gdy tabela się zmieniła. Ogranicza rozmiar ramki, by nie przekroczyła {@link Protocol#MAX_FRAME_LENGTH}
+     * @return Ramka {@link Protocol#LEADERBOARD}
+     */
+    static byte[] getLeaderboardFrame()
+    {
+        ShardedScoreIndex current = getIndex();
+        EncodedLeaderboard encoded = encodedLeaderboard;
+        if(encoded == null || encoded.index != current) {
+            encoded = new EncodedLeaderboard(current);
+            encodedLeaderboard = encoded;
+        }
+        return encoded.frame;
+    }
+
+    /**
+     * Tworzy i odtwarza z dysku wszystkie części tabeli
+     * @return Tablica części
+     */
+    private static Shard[] createShards()
+    {
+        Shard[] created = new Shard[SHARD_COUNT];
+        for(int i = 0; i < SHARD_COUNT; i++)
+            created[i] = new Shard(i);
+        return created;
+    }
+
+    /**
+     * Dodaje wynik do indeksu i uaktualnia najlepszy wynik gracza
+     * @param current Indeks
+     * @param name Imię gracza
+     * @param score Wynik gracza
+     * @return Nowa wersja indeksu
+     */
+    private static ScoreIndex add(ScoreIndex current, String name, int score)
+    {
+        bestScores.merge(name, score, Math::max);
+        return current.insert(name, score);
+    }
+}
@@ -1,16 +1,15 @@
 package Server;
 
-import javafx.util.Pair;
+import Common.Message;
+import Common.Protocol;
 
 import java.io.*;
 import java.net.Socket;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.Properties;
-import java.util.Scanner;
 
 /**
- * Klasa obsługująca serwerową część połączenia między serwerem a klientem. Działa na osobnym wątku.
+ * Klasa obsługująca serwerową część połączenia między serwerem a klientem. Działa na osobnym wątku
+ * (zwykłym lub wirtualnym - w zależności od trybu pracy serwera).
  */
 public class ServerConnection implements Runnable
 {
@@ -20,14 +19,14 @@ public class ServerConnection implements Runnable
     private final Socket socket;
 
     /**
-     * Strumień obiektowy wyjścia
+     * Strumień wyjściowy, do którego zapisywane są ramki protokołu
      */
-    private ObjectOutputStream objectOutputStream;
+    private DataOutputStream dataOutputStream;
 
     /**
-     * Strumień obiektowy wejścia
+     * Strumień wejściowy, z którego odczytywane są ramki protokołu
      */
-    private ObjectInputStream objectInputStream;
+    private DataInputStream dataInputStream;
 
     /**
      * Getter gnaizdka
@@ -38,7 +37,7 @@ public class ServerConnection implements Runnable
     }
 
     /**
-     * Przypisuje zmienną {@link #socket} oraz na jej podstawie inicjalizuje {@link #objectInputStream} oraz {@link #objectOutputStream}
+     * Przypisuje zmienną {@link #socket} oraz na jej podstawie inicjalizuje {@link #dataInputStream} oraz {@link #dataOutputStream}
      * @param socket Gniazdko generowane w metodzie akceptującej klientów w klasie głównej
      */
     ServerConnection(Socket socket)
@@ -46,148 +45,70 @@ public class ServerConnection implements Runnable
         this.socket = socket;
         try
         {
-            objectOutputStream = new ObjectOutputStream(socket.getOutputStream());
-            objectInputStream = new ObjectInputStream(socket.getInputStream());
+            dataOutputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            dataInputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Czeka w pętli na odebranie danych od klienta
+     * Czeka na dane od klienta, blokując na odczycie, do czasu zamknięcia połączenia przez którąś ze stron.
+     * Po zakończeniu zamyka gniazdko i usuwa połączenie z listy w klasie głównej
      */
     @Override
     public void run()
-    {
-        while(true)
-        {
-            try {
-                receiveData();
-            } catch(IOException | ClassNotFoundException e) {
-                //tutaj jest SocketException jeśli objectOutputStream jest pusty
-                try {
-                    Thread.sleep(25);
-                } catch (InterruptedException ex) {
-                    ex.printStackTrace();
-                }
-            }
-        }
-    }
-
-    /**
-     * Zapisuje dane do strumienia obiektowego
-     * @param key Nagłówek wiadomości
-     * @param value Ciało wiadomości
-     */
-    private void writeToBuffer(String key, Object value)
     {
         try {
-            //objectOutputStream.reset();
-            objectOutputStream.writeObject(new Pair<>(key, value));
-        }
-        catch (IOException e) {
-            System.out.println(e.getMessage());
+            while(true)
+                receiveData();
+        } catch(EOFException e) {
+            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Client has disconnected");
+        } catch(IOException e) {
+            if(!socket.isClosed())
+                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Connection error: " + e.getMessage());
+        } finally {
+            close();
+            Main.removeConnection(this);
         }
     }
 
     /**
-     * Przesyła dane przez gniazdko do klienta
+     * Zamyka gniazdko połączenia
      */
-    private void flushBuffer()
+    void close()
     {
         try {
-            objectOutputStream.flush();
+            socket.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Zapisuje dane do strumienia i przesyła je przez gniazdko do klienta
-     * @param key Nagłówek wiadomości
-     * @param value Ciało wiadomości
+     * Zapisuje gotową ramkę do strumienia i przesyła ją przez gniazdko do klienta
+     * @param frame Zakodowana ramka
      */
-    private void writeAndFlush(String key, Object value)
+    private void writeAndFlush(byte[] frame)
     {
-        writeToBuffer(key, value);
-        flushBuffer();
+        try {
+            dataOutputStream.write(frame);
+            dataOutputStream.flush();
+        }
+        catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
     }
 
     /**
-     * Odbiera dane i wywołuje {@link #manageReceivedData(Pair)}
+     * Odbiera ramkę, przekazuje ją do {@link RequestHandler#handle(Message)} i odsyła odpowiedź
      * @throws IOException Wyrzucany przy błędzie odczytywania danych ze strumienia wejściowego
-     * @throws ClassNotFoundException Wyrzucany przy błędzie rzutowania klas
-     */
-    private void receiveData() throws IOException, ClassNotFoundException
-    {
-        Pair<String, Object> pair = (Pair<String, Object>)objectInputStream.readObject();
-        manageReceivedData(pair);
-    }
-
-    /**
-     * Zarząda danymi w parze nagłowek-wartość na podstawie informacji zawartych w nagłówku
-     * @param pair Para nagłowek-wartość
      */
-    private void manageReceivedData(Pair<String, Object> pair)
+    private void receiveData() throws IOException
     {
-        String key = pair.getKey();
-        String[] keyWords = key.split(" ");
-
-        if(keyWords[0].equals("GET") && keyWords[1].equals("Properties"))
-        {
-            Properties properties = new Properties();
-            try{
-                FileInputStream fileInputStream = new FileInputStream("./data/server/" + keyWords[2] + ".properties");
-                properties.load(fileInputStream);
-            } catch (IOException e) {
-                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] Nie udalo sie odnalezc pliku .properties");
-            }
-            writeAndFlush("SEND Properties " + keyWords[2], properties);
-            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + "SEND Properties " + keyWords[2]);
-        }
-
-        else if(keyWords[0].equals("GET") && keyWords[1].equals("Level"))
-        {
-            int levelIndex = Integer.parseInt(keyWords[2]);
-            ArrayList<String> lines = new ArrayList<>();
-            Scanner mapScanner;
-            try {
-                mapScanner = new Scanner(new File("./data/server/levels/" +levelIndex + ".txt"));
-                while(mapScanner.hasNextLine())
-                    lines.add(mapScanner.nextLine());
-
-                writeAndFlush("SEND Level " + keyWords[2], lines);
-                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + "SEND Level " + keyWords[2]);
-            } catch (FileNotFoundException e) {
-                System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] " + "Desired level not found!");
-                e.printStackTrace();
-            }
-        }
-
-        else if(keyWords[0].equals("GET") && keyWords[1].equals("Leaderboard"))
-        {
-            ArrayList<String> highScores = new ArrayList<>();
-            Scanner mapScanner = null;
-            try {
-                synchronized (Main.getScoreQueries()){
-                    mapScanner = new Scanner(new File("./data/server/highScores/highScores.txt"));
-                }
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
-            assert mapScanner != null;
-            while(mapScanner.hasNextLine())
-                highScores.add(mapScanner.nextLine());
-
-            writeAndFlush("SEND Leaderboard", highScores);
-            System.out.println("[" + new Timestamp(System.currentTimeMillis()) + "] "+ "SEND Leaderboard");
-        }
-
-        else if (keyWords[0].equals("UPDATE") && keyWords[1].equals("Highscore")){
-            synchronized (Main.getScoreQueries()){
-                Main.getScoreQueries().add((Pair<String, String>) pair.getValue());
-            }
-        }
-
+        Message message = Protocol.readFrame(dataInputStream);
+        byte[] response = RequestHandler.handle(message);
+        if(response != null)
+            writeAndFlush(response);
     }
 }
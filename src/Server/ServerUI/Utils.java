@@ -6,6 +6,7 @@ import Client.Game.Entities.Player;
 import Client.Game.Environment.*;
 import Client.Game.Managers.GameManager;
 import Client.Game.Utilities.Vector;
+import Common.Protocol;
 
 import javax.swing.*;
 import java.awt.*;
@@ -96,11 +97,7 @@ public class Utils
             boolean obstacle = Boolean.parseBoolean(tileProperties.getProperty("obstacle"));
             boolean destructible = Boolean.parseBoolean(tileProperties.getProperty("destructible"));
 
-            String name = tileProperties.getProperty("textureName");
-            ImageIcon icon = new ImageIcon("./data/img/textures/" + name);
-            ImageIcon scaledIcon = resizeImageIcon(icon, GameManager.DEFAULT_TILE_WIDTH, GameManager.DEFAULT_TILE_WIDTH);
-
-            tileTypes.put(ID, new TileType(ID, scaledIcon, obstacle, destructible));
+            tileTypes.put(ID, new TileType(ID, tileProperties.getProperty("textureName"), obstacle, destructible));
         }
     }
 
@@ -242,13 +239,13 @@ public class Utils
 
     static void getAppProperties(ClientConnection clientConnection)
     {
-        clientConnection.writeAndRemember("GET Properties gameManager", null);
-        clientConnection.writeAndRemember("GET Properties tile", null);
-        clientConnection.writeAndRemember("GET Properties bomb", null);
-        clientConnection.writeAndRemember("GET Properties explosion", null);
-        clientConnection.writeAndRemember("GET Properties player", null);
-        clientConnection.writeAndRemember("GET Properties enemy", null);
-        clientConnection.writeAndRemember("GET Properties collectable", null);
+        clientConnection.writeAndRemember(Protocol.encodeGetProperties("gameManager"));
+        clientConnection.writeAndRemember(Protocol.encodeGetProperties("tile"));
+        clientConnection.writeAndRemember(Protocol.encodeGetProperties("bomb"));
+        clientConnection.writeAndRemember(Protocol.encodeGetProperties("explosion"));
+        clientConnection.writeAndRemember(Protocol.encodeGetProperties("player"));
+        clientConnection.writeAndRemember(Protocol.encodeGetProperties("enemy"));
+        clientConnection.writeAndRemember(Protocol.encodeGetProperties("collectable"));
         clientConnection.flushBuffer();
     }
 
@@ -0,0 +1,177 @@
+package Server;
+
+import javafx.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Niezmienny widok tabeli wyników złożony z indeksów {@link ScoreIndex} poszczególnych części tabeli. Zapytania są
+ * wykonywane na każdej części i scalane, więc widok odpowiada na te same pytania co pojedynczy indeks. Wyniki równe
+ * ustawiane są według numeru części, a w obrębie części według kolejności dodania
+ */
+final class ShardedScoreIndex
+{
+    /**
+     * Indeksy części tabeli
+     */
+    private final ScoreIndex[] shards;
+
+    /**
+     * Konstruktor, przypisuje wartości zmiennym
+     * @param shards Indeksy części tabeli - tablica nie może być później modyfikowana
+     */
+    ShardedScoreIndex(ScoreIndex[] shards)
+    {
+        this.shards = shards;
+    }
+
+    /**
+     * Sprawdza, czy widok składa się z podanych wersji indeksów
+     * @param current Aktualne indeksy części tabeli
+     * @return {@code true}, jeśli żadna część nie zmieniła się od utworzenia widoku
+     */
+    boolean isViewOf(ScoreIndex[] current)
+    {
+        if(current.length != shards.length)
+            return false;
+        for(int i = 0; i < shards.length; i++)
+            if(current[i] != shards[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Liczba wpisów w tabeli
+     * @return Liczba wpisów
+     */
+    int size()
+    {
+        int size = 0;
+        for(ScoreIndex shard : shards)
+            size += shard.size();
+        return size;
+    }
+
+    /**
+     * Zwraca stronę tabeli. Pozycja początku strony wyznaczana jest wyszukiwaniem binarnym po wyniku, a następnie
+     * strony poszczególnych części są scalane
+     * @param offset Pozycja pierwszego wpisu, licząc od 0
+     * @param limit Maksymalna liczba wpisów
+     * @return Lista par imię-wynik w kolejności malejącej
+     */
+    List<Pair<String, Integer>> page(int offset, int limit)
+    {
+        int from = Math.max(0, offset);
+        int to = (int)Math.min((long)from + Math.max(0, limit), size());
+        if(from >= to)
+            return Collections.emptyList();
+
+        int score = scoreAt(from);
+        int skip = from - countAbove(score);
+        List<List<Pair<String, Integer>>> parts = new ArrayList<>(shards.length);
+        for(ScoreIndex shard : shards)
+        {
+            int equal = shard.countInRange(score, score);
+            int taken = Math.min(skip, equal);
+            skip -= taken;
+            parts.add(shard.page(shard.countAbove(score) + taken, to - from));
+        }
+
+        int[] cursors = new int[parts.size()];
+        ArrayList<Pair<String, Integer>> entries = new ArrayList<>(to - from);
+        while(entries.size() < to - from)
+        {
+            int best = -1;
+            for(int i = 0; i < parts.size(); i++)
+                if(cursors[i] < parts.get(i).size()
+                        && (best < 0 || parts.get(i).get(cursors[i]).getValue() > parts.get(best).get(cursors[best]).getValue()))
+                    best = i;
+            if(best < 0)
+                break;
+            entries.add(parts.get(best).get(cursors[best]++));
+        }
+        return entries;
+    }
+
+    /**
+     * Liczy wpisy z wynikiem większym od podanego
+     * @param score Wynik
+     * @return Liczba wpisów z większym wynikiem
+     */
+    int countAbove(int score)
+    {
+        int count = 0;
+        for(ScoreIndex shard : shards)
+            count += shard.countAbove(score);
+        return count;
+    }
+
+    /**
+     * Zwraca pozycję, jaką w tabeli zajmuje wynik
+     * @param score Wynik
+     * @return Pozycja, licząc od 1 - wyniki równe zajmują tę samą pozycję
+     */
+    int rankOf(int score)
+    {
+        return countAbove(score) + 1;
+    }
+
+    /**
+     * Zwraca pozycję pierwszego wpisu o wyniku nie większym od podanego
+     * @param maxScore Górna granica przedziału wyników
+     * @return Pozycja, licząc od 0
+     */
+    int firstAtMost(int maxScore)
+    {
+        return countAbove(maxScore);
+    }
+
+    /**
+     * Liczy wpisy z wynikiem z podanego przedziału
+     * @param minScore Dolna granica przedziału (włącznie)
+     * @param maxScore Górna granica przedziału (włącznie)
+     * @return Liczba wpisów
+     */
+    int countInRange(int minScore, int maxScore)
+    {
+        int count = 0;
+        for(ScoreIndex shard : shards)
+            count += shard.countInRange(minScore, maxScore);
+        return count;
+    }
+
+    /**
+     * Zwraca wpisy z wynikiem z podanego przedziału
+     * @param minScore Dolna granica przedziału (włącznie)
+     * @param maxScore Górna granica przedziału (włącznie)
+     * @param limit Maksymalna liczba wpisów
+     * @return Lista par imię-wynik w kolejności malejącej
+     */
+    List<Pair<String, Integer>> range(int minScore, int maxScore, int limit)
+    {
+        return page(firstAtMost(maxScore), Math.min(limit, countInRange(minScore, maxScore)));
+    }
+
+    /**
+     * Wyznacza wynik wpisu zajmującego podaną pozycję - najmniejszy wynik, od którego większych jest
+     * nie więcej wpisów niż wynosi pozycja
+     * @param position Pozycja, licząc od 0, mniejsza od rozmiaru tabeli
+     * @return Wynik wpisu
+     */
+    private int scoreAt(int position)
+    {
+        long low = Integer.MIN_VALUE;
+        long high = Integer.MAX_VALUE;
+        while(low < high)
+        {
+            long middle = (low + high) >> 1;
+            if(countAbove((int)middle) <= position)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+        return (int)low;
+    }
+}